@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker failing submissions fast while the S2P endpoints are failing.
+ * <p>
+ * While closed, the outcomes of the last calls are kept; once the minimum number of calls was seen and the share of
+ * failures reaches the threshold, the breaker opens and rejects calls. Transport failures, {@code 429} and
+ * {@code 5xx} responses are failures, as are calls slower than the slow call threshold when one is set. After the
+ * open duration, the breaker lets a number of probe calls through: it closes when they all succeed, and opens again
+ * on the first failure.
+ * <p>
+ * A breaker may be shared by the clients calling the same endpoints. Outcomes of calls admitted before the last
+ * state change are ignored.
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean[] failures;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenProbes;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private int calls;
+    private int failed;
+    private int next;
+    private long openedAt;
+    private int probesInFlight;
+    private int probesSucceeded;
+
+    private CircuitBreaker(Builder builder) {
+        this.failures = new boolean[builder.windowSize];
+        this.minimumCalls = builder.minimumCalls;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallNanos = builder.slowCallNanos;
+        this.openNanos = builder.openNanos;
+        this.halfOpenProbes = builder.halfOpenProbes;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos)
+            return State.HALF_OPEN;
+        return state;
+    }
+
+    /**
+     * @return a ticket to record the outcome of the call with, or -1 if the call is rejected
+     */
+    synchronized long acquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos)
+                return -1;
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes)
+                return -1;
+            probesInFlight++;
+        }
+        return generation;
+    }
+
+    /**
+     * @param ticket       ticket of the call
+     * @param failure      true if the call failed
+     * @param latencyNanos duration of the call
+     */
+    synchronized void record(long ticket, boolean failure, long latencyNanos) {
+        if (ticket != generation)
+            return;
+        failure |= slowCallNanos > 0 && latencyNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            probesInFlight--;
+            if (failure)
+                open();
+            else if (++probesSucceeded >= halfOpenProbes)
+                transition(State.CLOSED);
+        } else if (state == State.CLOSED) {
+            if (calls == failures.length) {
+                if (failures[next])
+                    failed--;
+            } else {
+                calls++;
+            }
+            failures[next] = failure;
+            next = (next + 1) % failures.length;
+            if (failure)
+                failed++;
+            if (calls >= minimumCalls && failed >= failureRateThreshold * calls)
+                open();
+        }
+    }
+
+    private void open() {
+        transition(State.OPEN);
+        openedAt = System.nanoTime();
+    }
+
+    private void transition(State state) {
+        this.state = state;
+        generation++;
+        calls = 0;
+        failed = 0;
+        next = 0;
+        probesInFlight = 0;
+        probesSucceeded = 0;
+    }
+
+    public static class Builder {
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private long slowCallNanos;
+        private long openNanos = TimeUnit.SECONDS.toNanos(5);
+        private int halfOpenProbes = 1;
+
+        private Builder() {
+        }
+
+        /**
+         * @param windowSize number of recent calls the failure rate is computed over, 20 by default
+         */
+        public Builder setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * @param minimumCalls number of calls seen before the breaker may open, 10 by default
+         */
+        public Builder setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * @param failureRateThreshold share of failed calls opening the breaker, 0.5 by default
+         */
+        public Builder setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * @param threshold duration from which a call counts as failed, none by default
+         */
+        public Builder setSlowCallThreshold(long threshold, TimeUnit unit) {
+            this.slowCallNanos = unit.toNanos(threshold);
+            return this;
+        }
+
+        /**
+         * @param duration time calls are rejected before probing, 5 seconds by default
+         */
+        public Builder setOpenDuration(long duration, TimeUnit unit) {
+            this.openNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * @param halfOpenProbes number of probe calls that must succeed to close the breaker, 1 by default
+         */
+        public Builder setHalfOpenProbes(int halfOpenProbes) {
+            this.halfOpenProbes = halfOpenProbes;
+            return this;
+        }
+
+        public CircuitBreaker build() throws IllegalArgumentException {
+            if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize)
+                throw new IllegalArgumentException("CircuitBreaker minimumCalls must be between 1 and windowSize");
+            if (failureRateThreshold <= 0 || failureRateThreshold > 1)
+                throw new IllegalArgumentException("CircuitBreaker failureRateThreshold must be in (0, 1]");
+            if (slowCallNanos < 0 || openNanos < 0)
+                throw new IllegalArgumentException("CircuitBreaker durations must not be negative");
+            if (halfOpenProbes < 1)
+                throw new IllegalArgumentException("CircuitBreaker halfOpenProbes must be positive");
+            return new CircuitBreaker(this);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hedging of slow submissions.
+ * <p>
+ * When an attempt has not completed after the given percentile of the recent submission latencies, the same request
+ * is sent a second time and the first response is used. A submission's latency runs from its first attempt to the
+ * response used, so hedged submissions count with the time their first attempt was waited for. Both carry the same {@code Idempotency-Key}, so the
+ * server registers the request once. A hedge is only sent if a slot is free, so hedging never makes a caller
+ * wait, and not before the minimum number of latencies has been seen.
+ */
+public class HedgePolicy {
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final int windowSize;
+
+    private HedgePolicy(Builder builder) {
+        this.percentile = builder.percentile;
+        this.minDelayNanos = builder.minDelayNanos;
+        this.minSamples = builder.minSamples;
+        this.windowSize = builder.windowSize;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    LatencyWindow newWindow() {
+        return new LatencyWindow(windowSize, minSamples, percentile, minDelayNanos);
+    }
+
+    public static class Builder {
+        private double percentile = 0.95;
+        private long minDelayNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        private int minSamples = 20;
+        private int windowSize = 1024;
+
+        private Builder() {
+        }
+
+        /**
+         * @param percentile latency percentile after which a hedge is sent, between 0 and 1, 0.95 by default
+         */
+        public Builder setPercentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * @param delay minimum delay before a hedge, 10 milliseconds by default
+         */
+        public Builder setMinDelay(long delay, TimeUnit unit) {
+            this.minDelayNanos = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * @param minSamples number of latencies seen before hedging, 20 by default
+         */
+        public Builder setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * @param windowSize number of recent latencies the percentile is computed over, 1024 by default
+         */
+        public Builder setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        public HedgePolicy build() throws IllegalArgumentException {
+            if (percentile <= 0 || percentile >= 1)
+                throw new IllegalArgumentException("HedgePolicy percentile must be between 0 and 1");
+            if (minDelayNanos < 0)
+                throw new IllegalArgumentException("HedgePolicy minDelay must not be negative");
+            if (windowSize < 1 || minSamples < 1 || minSamples > windowSize)
+                throw new IllegalArgumentException("HedgePolicy minSamples must be between 1 and windowSize");
+            return new HedgePolicy(this);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.client;
+
+import java.util.Arrays;
+
+/**
+ * Recent submission latencies and the hedge delay derived from them. The percentile is recomputed every sixteenth of
+ * the window rather than on every request.
+ */
+final class LatencyWindow {
+    private final long[] samples;
+    private final long[] sorted;
+    private final int minSamples;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int recomputeInterval;
+    private int size;
+    private int next;
+    private long recorded;
+    private long computedAt = -1;
+    private long delayNanos = -1;
+
+    LatencyWindow(int windowSize, int minSamples, double percentile, long minDelayNanos) {
+        this.samples = new long[windowSize];
+        this.sorted = new long[windowSize];
+        this.minSamples = minSamples;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelayNanos;
+        this.recomputeInterval = Math.max(1, windowSize / 16);
+    }
+
+    synchronized void record(long latencyNanos) {
+        samples[next] = latencyNanos;
+        next = (next + 1) % samples.length;
+        if (size < samples.length)
+            size++;
+        recorded++;
+    }
+
+    /**
+     * @return the hedge delay, or -1 if too few latencies were recorded
+     */
+    synchronized long delayNanos() {
+        if (size < minSamples)
+            return -1;
+        if (computedAt < 0 || recorded - computedAt >= recomputeInterval) {
+            System.arraycopy(samples, 0, sorted, 0, size);
+            Arrays.sort(sorted, 0, size);
+            delayNanos = Math.max(minDelayNanos, sorted[Math.min(size - 1, (int) (percentile * size))]);
+            computedAt = recorded;
+        }
+        return delayNanos;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.client;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retry of failed submissions with jittered exponential backoff.
+ * <p>
+ * Responses with a transient status, {@code 429}, {@code 502}, {@code 503} and {@code 504}, and transport failures are
+ * retried. Every attempt of a request carries its {@code jti}, the request hash, as {@code Idempotency-Key}, so a
+ * request that reached the server before failing is not registered twice; requests without a {@code jti} are only
+ * retried when the connection could not be established.
+ * <p>
+ * The backoff before retry {@code n} is drawn uniformly between zero and {@code min(maxBackoff, initialBackoff *
+ * multiplier^(n - 1))}, so that callers failing together do not retry together. A {@code Retry-After} in seconds
+ * raises it, up to the maximum backoff.
+ */
+public class RetryPolicy {
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double multiplier;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffNanos = builder.initialBackoffNanos;
+        this.maxBackoffNanos = builder.maxBackoffNanos;
+        this.multiplier = builder.multiplier;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * @return maximum number of attempts of a request, including the first
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param status HTTP status of a response
+     * @return true if the status reports a transient failure
+     */
+    public boolean isRetryable(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+    /**
+     * @param retry    number of the retry, 1 for the second attempt
+     * @param response the failed response, or null for a transport failure
+     * @return time to wait before the retry
+     */
+    long backoffNanos(int retry, S2PResponse response) {
+        double ceiling = initialBackoffNanos * Math.pow(multiplier, retry - 1);
+        long backoff = (long) (ThreadLocalRandom.current().nextDouble() * Math.min(ceiling, maxBackoffNanos));
+        String retryAfter = response == null ? null : response.getHeader("Retry-After");
+        if (retryAfter != null) {
+            try {
+                backoff = Math.max(backoff, TimeUnit.SECONDS.toNanos(Long.parseLong(retryAfter.trim())));
+            } catch (NumberFormatException e) {
+                // an HTTP date, left to the exponential backoff
+            }
+        }
+        return Math.min(backoff, maxBackoffNanos);
+    }
+
+    public static class Builder {
+        private int maxAttempts = 3;
+        private long initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        private long maxBackoffNanos = TimeUnit.SECONDS.toNanos(5);
+        private double multiplier = 2;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxAttempts maximum number of attempts of a request including the first, 3 by default
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * @param backoff upper bound of the backoff before the first retry, 100 milliseconds by default
+         */
+        public Builder setInitialBackoff(long backoff, TimeUnit unit) {
+            this.initialBackoffNanos = unit.toNanos(backoff);
+            return this;
+        }
+
+        /**
+         * @param backoff upper bound of any backoff, 5 seconds by default
+         */
+        public Builder setMaxBackoff(long backoff, TimeUnit unit) {
+            this.maxBackoffNanos = unit.toNanos(backoff);
+            return this;
+        }
+
+        /**
+         * @param multiplier growth of the backoff bound per retry, 2 by default
+         */
+        public Builder setMultiplier(double multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        public RetryPolicy build() throws IllegalArgumentException {
+            if (maxAttempts < 1)
+                throw new IllegalArgumentException("RetryPolicy maxAttempts must be positive");
+            if (initialBackoffNanos < 0 || maxBackoffNanos < initialBackoffNanos)
+                throw new IllegalArgumentException("RetryPolicy backoffs are out of range");
+            if (multiplier < 1)
+                throw new IllegalArgumentException("RetryPolicy multiplier must be at least 1");
+            return new RetryPolicy(this);
+        }
+    }
+}
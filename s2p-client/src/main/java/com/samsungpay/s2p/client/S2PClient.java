@@ -0,0 +1,602 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.client;
+
+import com.samsungpay.s2p.common.S2PRequest;
+import com.samsungpay.s2p.common.Utf8Writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Thread-safe client submitting signed requests to the S2P registration endpoints.
+ * <p>
+ * A request is sent with the method and content type of its {@link S2PRequest.Request} to the endpoint uri
+ * resolved against the base URL. The registration JSON is the body, streamed UTF-8 encoded into the connection
+ * with its length announced, and the JWT is the bearer token of the {@code Authorization} header. Every HTTP
+ * status is returned as a {@link S2PResponse}, transport failures and timeouts are thrown.
+ * <p>
+ * Connections are kept alive and reused through the JDK connection cache, which keeps at most
+ * {@code http.maxConnections} idle connections per host, 5 by default. With more requests in flight than that,
+ * connections keep being reopened, so the number of requests in flight defaults to that pool size and a client
+ * built with a larger bound logs a warning. Deployments submitting concurrently should start the JVM with e.g.
+ * {@code -Dhttp.maxConnections=64}; the property applies to every {@link HttpURLConnection} of the JVM and is read
+ * once, when the connection cache is first used. The number of requests in flight is bounded, callers beyond the
+ * bound wait up to the acquire timeout.
+ * <p>
+ * Optionally, failed submissions are retried with a {@link RetryPolicy}, slow ones hedged with a
+ * {@link HedgePolicy}, and submissions rejected without being sent while a {@link CircuitBreaker} is open. Every
+ * attempt carries the {@code jti} of the request as {@code Idempotency-Key}.
+ */
+public class S2PClient implements Closeable {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Logger LOGGER = Logger.getLogger(S2PClient.class.getName());
+
+    private final Map<S2PRequest.Request, URL> urls = new EnumMap<S2PRequest.Request, URL>(S2PRequest.Request.class);
+    private final Map<String, String> headers;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final long acquireTimeoutNanos;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyWindow latencies;
+    private final ExecutorService attemptExecutor;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+
+    private S2PClient(Builder builder) throws MalformedURLException {
+        String baseUrl = builder.baseUrl.endsWith("/") ? builder.baseUrl.substring(0, builder.baseUrl.length() - 1) : builder.baseUrl;
+        for (S2PRequest.Request request : S2PRequest.Request.values())
+            urls.put(request, new URL(baseUrl + request.getUri()));
+        this.headers = new LinkedHashMap<String, String>(builder.headers);
+        this.connectTimeoutMillis = (int) builder.connectTimeoutMillis;
+        this.readTimeoutMillis = (int) builder.readTimeoutMillis;
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(builder.acquireTimeoutMillis);
+        this.maxInFlight = builder.maxInFlight;
+        this.inFlight = new Semaphore(builder.maxInFlight, true);
+        this.ownsExecutor = builder.executor == null;
+        this.executor = ownsExecutor ? Executors.newFixedThreadPool(builder.maxInFlight, newThreadFactory("s2p-client-")) : builder.executor;
+        this.retryPolicy = builder.retryPolicy;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.latencies = builder.hedgePolicy == null ? null : builder.hedgePolicy.newWindow();
+        // hedged attempts run apart from their callers, each holding a slot, so there are at most max in flight
+        this.attemptExecutor = latencies == null ? null : Executors.newCachedThreadPool(newThreadFactory("s2p-client-attempt-"));
+    }
+
+    /**
+     * @return the number of idle connections per host the JDK keeps alive, which treats values below 1 as unset
+     */
+    static int keepAliveConnections() {
+        int connections = Integer.getInteger("http.maxConnections", 5);
+        return connections > 0 ? connections : 5;
+    }
+
+    private static ThreadFactory newThreadFactory(final String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, prefix + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Posts the request and reads the whole response, retrying and hedging as configured.
+     *
+     * @param request signed request
+     * @return the response of the last attempt, whatever its status
+     * @throws java.net.SocketTimeoutException if connecting or reading timed out on the last attempt
+     * @throws InterruptedIOException          if no slot was available within the acquire timeout
+     * @throws IOException                     if the circuit breaker is open
+     */
+    public S2PResponse submit(S2PRequest request) throws IOException {
+        if (request == null)
+            throw new IllegalArgumentException("S2PClient request is missing");
+        S2PRequest.Request type = request.getRequest();
+        if (type == null)
+            throw new IllegalArgumentException("S2PClient request uri " + request.getUri() + " is unknown");
+        URL url = urls.get(type);
+        String idempotencyKey = request.getDecodedJwt().getPayload().getJwtId();
+        int maxAttempts = retryPolicy == null ? 1 : retryPolicy.getMaxAttempts();
+
+        for (int attempt = 1; ; attempt++) {
+            acquire();
+            long ticket = circuitBreaker == null ? 0 : circuitBreaker.acquire();
+            if (ticket < 0) {
+                inFlight.release();
+                throw new IOException("S2PClient circuit breaker is open");
+            }
+
+            long start = System.nanoTime();
+            S2PResponse response;
+            try {
+                response = latencies == null ? sendAndRelease(url, type, request, idempotencyKey, null)
+                        : sendHedged(url, type, request, idempotencyKey);
+            } catch (IOException e) {
+                record(ticket, true, System.nanoTime() - start);
+                if (attempt >= maxAttempts || Thread.currentThread().isInterrupted()
+                        || !(idempotencyKey != null || e instanceof ConnectException))
+                    throw e;
+                backoff(attempt, null);
+                continue;
+            } catch (RuntimeException e) {
+                record(ticket, true, System.nanoTime() - start);
+                throw e;
+            }
+
+            int status = response.getStatus();
+            record(ticket, status == 429 || status >= 500, response.getLatencyNanos());
+            if (attempt >= maxAttempts || !retryPolicy.isRetryable(status) || idempotencyKey == null)
+                return response;
+            backoff(attempt, response);
+        }
+    }
+
+    /**
+     * Submits the request on the client executor.
+     *
+     * @param request signed request
+     * @return the response, completed exceptionally with the {@link IOException} of a failed submission, or with a
+     * {@link RejectedExecutionException} once the client is closed
+     */
+    public CompletableFuture<S2PResponse> submitAsync(final S2PRequest request) {
+        final CompletableFuture<S2PResponse> future = new CompletableFuture<S2PResponse>();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        future.complete(submit(request));
+                    } catch (Exception e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * @return number of requests being sent, hedges included
+     */
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * @return number of attempts made after a failed one
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * @return number of hedges sent
+     */
+    public long getHedgeCount() {
+        return hedges.get();
+    }
+
+    /**
+     * Stops the client executor, if the client created it. Submissions in progress complete.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor)
+            executor.shutdown();
+        if (attemptExecutor != null)
+            attemptExecutor.shutdown();
+    }
+
+    private void record(long ticket, boolean failure, long latencyNanos) {
+        if (circuitBreaker != null)
+            circuitBreaker.record(ticket, failure, latencyNanos);
+    }
+
+    private void backoff(int attempt, S2PResponse response) throws InterruptedIOException {
+        retries.incrementAndGet();
+        try {
+            TimeUnit.NANOSECONDS.sleep(retryPolicy.backoffNanos(attempt, response));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("S2PClient interrupted before retrying");
+        }
+    }
+
+    /**
+     * Sends with the slot acquired by the caller, waits for the hedge delay and, if the response has not arrived by
+     * then and another slot is free, sends the request again. The first response is returned, a failure only if
+     * both attempts failed. Once one attempt responds the other is disconnected, so a stalled loser does not hold
+     * its slot and thread until the read timeout.
+     * <p>
+     * The latency recorded is that of the submission, from sending the first attempt to the response returned. A
+     * hedged submission therefore counts with the time its primary was waited for, rather than only the latency of
+     * the attempt that answered, which would pull the percentile down with every hedge.
+     */
+    private S2PResponse sendHedged(URL url, S2PRequest.Request type, S2PRequest request, String idempotencyKey) throws IOException {
+        long start = System.nanoTime();
+        S2PResponse response = awaitHedged(url, type, request, idempotencyKey);
+        latencies.record(System.nanoTime() - start);
+        return response;
+    }
+
+    private S2PResponse awaitHedged(URL url, S2PRequest.Request type, S2PRequest request, String idempotencyKey) throws IOException {
+        Attempt primaryAttempt = new Attempt();
+        CompletableFuture<S2PResponse> primary = sendAsync(url, type, request, idempotencyKey, primaryAttempt);
+        long delayNanos = latencies.delayNanos();
+        if (delayNanos >= 0) {
+            try {
+                return primary.get(delayNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (inFlight.tryAcquire()) {
+                    hedges.incrementAndGet();
+                    Attempt hedgeAttempt = new Attempt();
+                    CompletableFuture<S2PResponse> hedge = sendAsync(url, type, request, idempotencyKey, hedgeAttempt);
+                    return await(firstResponse(primary, hedge, primaryAttempt, hedgeAttempt));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("S2PClient interrupted waiting for a response");
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            }
+        }
+        return await(primary);
+    }
+
+    /**
+     * Sends on the attempt executor with a slot already acquired, which is released when done.
+     */
+    private CompletableFuture<S2PResponse> sendAsync(final URL url, final S2PRequest.Request type, final S2PRequest request, final String idempotencyKey,
+            final Attempt attempt) {
+        final CompletableFuture<S2PResponse> future = new CompletableFuture<S2PResponse>();
+        try {
+            attemptExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        future.complete(sendAndRelease(url, type, request, idempotencyKey, attempt));
+                    } catch (Exception e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static CompletableFuture<S2PResponse> firstResponse(CompletableFuture<S2PResponse> first, CompletableFuture<S2PResponse> second,
+            Attempt firstAttempt, Attempt secondAttempt) {
+        FirstResponse result = new FirstResponse(firstAttempt, secondAttempt);
+        first.whenComplete(result);
+        second.whenComplete(result);
+        return result;
+    }
+
+    private static S2PResponse await(CompletableFuture<S2PResponse> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("S2PClient interrupted waiting for a response");
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException)
+            return (IOException) cause;
+        if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+        return new IOException(cause);
+    }
+
+    /**
+     * Completes with the first response of two attempts, or with the last failure once both failed. The first response
+     * cancels both attempts, which only disconnects the one still waiting.
+     */
+    private static final class FirstResponse extends CompletableFuture<S2PResponse> implements BiConsumer<S2PResponse, Throwable> {
+        private final AtomicInteger failed = new AtomicInteger();
+        private final Attempt first;
+        private final Attempt second;
+
+        FirstResponse(Attempt first, Attempt second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void accept(S2PResponse response, Throwable error) {
+            if (error == null) {
+                if (complete(response)) {
+                    first.cancel();
+                    second.cancel();
+                }
+            } else if (failed.incrementAndGet() == 2)
+                completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Handle on the connection of one hedged attempt, so the losing attempt can be disconnected. Disconnecting makes
+     * its blocked write or read fail, which releases the slot and the attempt thread.
+     */
+    private static final class Attempt {
+        private HttpURLConnection connection;
+        private boolean finished;
+        private boolean cancelled;
+
+        synchronized boolean start(HttpURLConnection connection) {
+            if (cancelled)
+                return false;
+            this.connection = connection;
+            return true;
+        }
+
+        synchronized void finish() {
+            finished = true;
+            connection = null;
+        }
+
+        void cancel() {
+            HttpURLConnection connection;
+            synchronized (this) {
+                cancelled = true;
+                connection = finished ? null : this.connection;
+            }
+            // a finished connection went back to the keep-alive cache and must not be closed
+            if (connection != null)
+                connection.disconnect();
+        }
+    }
+
+    private void acquire() throws InterruptedIOException {
+        try {
+            if (!inFlight.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS))
+                throw new InterruptedIOException("S2PClient has " + maxInFlight + " requests in flight");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("S2PClient interrupted waiting for a slot");
+        }
+    }
+
+    private S2PResponse sendAndRelease(URL url, S2PRequest.Request type, S2PRequest request, String idempotencyKey,
+            Attempt attempt) throws IOException {
+        try {
+            return send(url, type, request, idempotencyKey, attempt);
+        } finally {
+            if (attempt != null)
+                attempt.finish();
+            inFlight.release();
+        }
+    }
+
+    private S2PResponse send(URL url, S2PRequest.Request type, S2PRequest request, String idempotencyKey,
+            Attempt attempt) throws IOException {
+        long start = System.nanoTime();
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (attempt != null && !attempt.start(connection))
+            throw new IOException("S2PClient attempt was cancelled");
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        connection.setUseCaches(false);
+        connection.setInstanceFollowRedirects(false);
+        connection.setRequestMethod(type.getType());
+        connection.setRequestProperty("Content-Type", type.getContentType());
+        connection.setRequestProperty("Accept", "application/json");
+        connection.setRequestProperty("Authorization", "Bearer " + request.getJwt());
+        if (idempotencyKey != null)
+            connection.setRequestProperty("Idempotency-Key", idempotencyKey);
+        for (Map.Entry<String, String> header : headers.entrySet())
+            connection.setRequestProperty(header.getKey(), header.getValue());
+
+        String body = request.getReg();
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(Utf8Writer.encodedLength(body));
+        OutputStream out = connection.getOutputStream();
+        Utf8Writer writer = new Utf8Writer(out);
+        writer.write(body);
+        writer.finish();
+        out.close();
+
+        int status = connection.getResponseCode();
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        // reading to the end returns the connection to the cache
+        String responseBody = in == null ? "" : read(in);
+        return new S2PResponse(status, responseBody, connection.getHeaderFields(), System.nanoTime() - start);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(512);
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0)
+                body.write(buffer, 0, read);
+            return new String(body.toByteArray(), UTF8);
+        } finally {
+            in.close();
+        }
+    }
+
+    public static class Builder {
+        private String baseUrl;
+        private final Map<String, String> headers = new LinkedHashMap<String, String>();
+        private long connectTimeoutMillis = 5000;
+        private long readTimeoutMillis = 30000;
+        private long acquireTimeoutMillis = 30000;
+        private int maxInFlight = keepAliveConnections();
+        private ExecutorService executor;
+        private RetryPolicy retryPolicy;
+        private HedgePolicy hedgePolicy;
+        private CircuitBreaker circuitBreaker;
+
+        private Builder() {
+        }
+
+        /**
+         * @param retryPolicy retry of failed submissions, a single attempt when not set
+         */
+        public Builder setRetryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * @param hedgePolicy hedging of slow submissions, none when not set
+         */
+        public Builder setHedgePolicy(HedgePolicy hedgePolicy) {
+            this.hedgePolicy = hedgePolicy;
+            return this;
+        }
+
+        /**
+         * @param circuitBreaker breaker rejecting submissions while the endpoints fail, possibly shared with other
+         *                       clients, none when not set
+         */
+        public Builder setCircuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * @param baseUrl scheme, host and optional port of the S2P API, e.g. {@code https://api.example.com}
+         */
+        public Builder setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        /**
+         * @param name  header sent with every request
+         * @param value header value
+         */
+        public Builder setHeader(String name, String value) {
+            this.headers.put(name, value);
+            return this;
+        }
+
+        /**
+         * @param timeout time to establish a connection, 5 seconds by default
+         */
+        public Builder setConnectTimeout(long timeout, TimeUnit unit) {
+            this.connectTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * @param timeout maximum time between bytes of the response, 30 seconds by default
+         */
+        public Builder setReadTimeout(long timeout, TimeUnit unit) {
+            this.readTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * @param timeout time to wait for a slot when the maximum number of requests are in flight, 30 seconds by
+         *                default
+         */
+        public Builder setAcquireTimeout(long timeout, TimeUnit unit) {
+            this.acquireTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * @param maxInFlight maximum number of requests sent at once, {@code http.maxConnections} by default; raise
+         *                    that property along with it, connections beyond it are not reused
+         */
+        public Builder setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * @param executor executor running the asynchronous submissions, a pool of max in flight threads owned by
+         *                 the client when not set
+         */
+        public Builder setExecutor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public S2PClient build() throws IllegalArgumentException {
+            if (baseUrl == null || baseUrl.isEmpty())
+                throw new IllegalArgumentException("S2PClient baseUrl is missing");
+            if (connectTimeoutMillis < 0 || connectTimeoutMillis > Integer.MAX_VALUE
+                    || readTimeoutMillis < 0 || readTimeoutMillis > Integer.MAX_VALUE || acquireTimeoutMillis < 0)
+                throw new IllegalArgumentException("S2PClient timeouts are out of range");
+            if (maxInFlight < 1)
+                throw new IllegalArgumentException("S2PClient maxInFlight must be positive");
+            int connections = keepAliveConnections();
+            if (maxInFlight > connections)
+                LOGGER.warning("S2PClient maxInFlight " + maxInFlight + " exceeds http.maxConnections " + connections
+                        + ", connections beyond it are reopened for every request");
+            try {
+                return new S2PClient(this);
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("S2PClient baseUrl is invalid: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.client;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Response of the S2P endpoint to a submitted request, whatever its status.
+ */
+public class S2PResponse {
+    private final int status;
+    private final String body;
+    private final Map<String, List<String>> headers;
+    private final long latencyNanos;
+
+    S2PResponse(int status, String body, Map<String, List<String>> headers, long latencyNanos) {
+        this.status = status;
+        this.body = body;
+        Map<String, List<String>> copy = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            // the status line is reported under a null name
+            if (header.getKey() != null)
+                copy.put(header.getKey(), header.getValue());
+        }
+        this.headers = Collections.unmodifiableMap(copy);
+        this.latencyNanos = latencyNanos;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the UTF-8 decoded body, empty if there was none
+     */
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * @param name header name, case insensitive
+     * @return the first value of the header, or null if absent
+     */
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return time from sending the request to reading the whole response
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * @return true if the status is 2xx
+     */
+    public boolean isSuccessful() {
+        return status >= 200 && status < 300;
+    }
+
+    @Override
+    public String toString() {
+        return "S2PResponse " + status + ": " + body;
+    }
+}
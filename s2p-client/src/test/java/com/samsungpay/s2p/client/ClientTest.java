@@ -0,0 +1,414 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.client;
+
+import com.samsungpay.s2p.common.S2PRequest;
+import com.samsungpay.s2p.membership.Registration;
+import com.samsungpay.s2p.membership.model.Barcode;
+import com.samsungpay.s2p.membership.model.MembershipIDType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+public class ClientTest {
+    private static KeyPair KEY_PAIR;
+    private StubServer stub;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KEY_PAIR = generator.generateKeyPair();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        stub = new StubServer();
+    }
+
+    @After
+    public void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    public void verifyRequestIsPostedOnReusedConnection() throws Exception {
+        S2PRequest request = newRequest("Café 😀");
+        S2PClient client = S2PClient.newBuilder()
+                .setBaseUrl(stub.getBaseUrl() + "/")
+                .build();
+        try {
+            for (int i = 0; i < 10; i++) {
+                S2PResponse response = client.submit(request);
+                Assert.assertEquals(200, response.getStatus());
+                Assert.assertTrue(response.isSuccessful());
+                Assert.assertEquals("{}", response.getBody());
+                Assert.assertEquals("application/json", response.getHeader("content-type"));
+            }
+        } finally {
+            client.close();
+        }
+
+        List<StubServer.Recorded> requests = stub.getRequests();
+        Assert.assertEquals(10, requests.size());
+        Set<Integer> ports = new HashSet<Integer>();
+        for (StubServer.Recorded recorded : requests) {
+            Assert.assertEquals("POST", recorded.method);
+            Assert.assertEquals("/sapi/loyalty/v1/registrations", recorded.path);
+            Assert.assertEquals("application/json;charset=UTF-8", recorded.contentType);
+            Assert.assertEquals("Bearer " + request.getJwt(), recorded.authorization);
+            Assert.assertEquals(request.getReg(), recorded.body);
+            ports.add(recorded.remotePort);
+        }
+        Assert.assertEquals("sequential requests share one connection", 1, ports.size());
+    }
+
+    @Test
+    public void verifyErrorStatusIsReturned() throws Exception {
+        stub.setBehavior(new StubServer.Behavior() {
+            @Override
+            public StubServer.Reply reply(int index, StubServer.Recorded request) {
+                return new StubServer.Reply(503, "{\"error\":\"unavailable\"}", 0);
+            }
+        });
+        S2PClient client = S2PClient.newBuilder().setBaseUrl(stub.getBaseUrl()).build();
+        try {
+            S2PResponse response = client.submit(newRequest("Program"));
+            Assert.assertEquals(503, response.getStatus());
+            Assert.assertFalse(response.isSuccessful());
+            Assert.assertEquals("{\"error\":\"unavailable\"}", response.getBody());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void verifyInFlightRequestsAreBounded() throws Exception {
+        stub.setBehavior(new StubServer.Behavior() {
+            @Override
+            public StubServer.Reply reply(int index, StubServer.Recorded request) {
+                return new StubServer.Reply(200, "{}", 50);
+            }
+        });
+        S2PClient client = S2PClient.newBuilder().setBaseUrl(stub.getBaseUrl()).setMaxInFlight(3).build();
+        try {
+            S2PRequest request = newRequest("Program");
+            List<CompletableFuture<S2PResponse>> futures = new ArrayList<CompletableFuture<S2PResponse>>();
+            for (int i = 0; i < 12; i++)
+                futures.add(client.submitAsync(request));
+            for (CompletableFuture<S2PResponse> future : futures)
+                Assert.assertEquals(200, future.get(10, TimeUnit.SECONDS).getStatus());
+        } finally {
+            client.close();
+        }
+        Assert.assertEquals(12, stub.getRequests().size());
+        Assert.assertTrue(stub.getMaxActive() > 1);
+        Assert.assertTrue(stub.getMaxActive() <= 3);
+    }
+
+    @Test
+    public void verifyMaxInFlightDefaultsToKeepAlivePool() throws Exception {
+        final List<LogRecord> warnings = new ArrayList<LogRecord>();
+        Handler handler = new Handler() {
+            @Override
+            public synchronized void publish(LogRecord record) {
+                if (record.getLevel() == Level.WARNING)
+                    warnings.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(S2PClient.class.getName());
+        logger.addHandler(handler);
+        try {
+            stub.setBehavior(new StubServer.Behavior() {
+                @Override
+                public StubServer.Reply reply(int index, StubServer.Recorded request) {
+                    return new StubServer.Reply(200, "{}", 50);
+                }
+            });
+            int connections = S2PClient.keepAliveConnections();
+            S2PClient client = S2PClient.newBuilder().setBaseUrl(stub.getBaseUrl()).build();
+            try {
+                S2PRequest request = newRequest("Program");
+                List<CompletableFuture<S2PResponse>> futures = new ArrayList<CompletableFuture<S2PResponse>>();
+                for (int i = 0; i < 2 * connections; i++)
+                    futures.add(client.submitAsync(request));
+                for (CompletableFuture<S2PResponse> future : futures)
+                    Assert.assertEquals(200, future.get(10, TimeUnit.SECONDS).getStatus());
+            } finally {
+                client.close();
+            }
+            Assert.assertTrue(stub.getMaxActive() <= connections);
+            synchronized (handler) {
+                Assert.assertTrue(warnings.isEmpty());
+            }
+
+            S2PClient.newBuilder().setBaseUrl(stub.getBaseUrl()).setMaxInFlight(connections + 1).build().close();
+            synchronized (handler) {
+                Assert.assertEquals(1, warnings.size());
+                Assert.assertTrue(warnings.get(0).getMessage().contains("http.maxConnections " + connections));
+            }
+        } finally {
+            logger.removeHandler(handler);
+        }
+    }
+
+    @Test
+    public void verifyClosedClientFailsAsyncSubmissions() throws Exception {
+        S2PClient client = S2PClient.newBuilder().setBaseUrl(stub.getBaseUrl()).build();
+        client.close();
+        CompletableFuture<S2PResponse> future = client.submitAsync(newRequest("Program"));
+        Assert.assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        Assert.assertEquals(0, stub.getRequests().size());
+    }
+
+    @Test
+    public void verifySlowResponseTimesOut() throws Exception {
+        stub.setBehavior(new StubServer.Behavior() {
+            @Override
+            public StubServer.Reply reply(int index, StubServer.Recorded request) {
+                return new StubServer.Reply(200, "{}", 1000);
+            }
+        });
+        S2PClient client = S2PClient.newBuilder()
+                .setBaseUrl(stub.getBaseUrl())
+                .setReadTimeout(100, TimeUnit.MILLISECONDS)
+                .build();
+        try {
+            client.submit(newRequest("Program"));
+            Assert.fail("the read must time out");
+        } catch (SocketTimeoutException e) {
+            // expected
+        } finally {
+            client.close();
+        }
+        Assert.assertEquals(0, client.getInFlight());
+    }
+
+    @Test
+    public void verifyTransientFailuresAreRetried() throws Exception {
+        stub.setBehavior(new StubServer.Behavior() {
+            @Override
+            public StubServer.Reply reply(int index, StubServer.Recorded request) {
+                if (index == 0)
+                    return new StubServer.Reply(503, "{}", 0);
+                if (index == 1)
+                    return new StubServer.Reply(StubServer.Reply.DROP, "", 0);
+                return new StubServer.Reply(200, "{}", 0);
+            }
+        });
+        S2PRequest request = newRequest("Program");
+        S2PClient client = S2PClient.newBuilder()
+                .setBaseUrl(stub.getBaseUrl())
+                .setRetryPolicy(RetryPolicy.newBuilder().setInitialBackoff(1, TimeUnit.MILLISECONDS).build())
+                .build();
+        try {
+            Assert.assertEquals(200, client.submit(request).getStatus());
+            Assert.assertEquals(2, client.getRetryCount());
+        } finally {
+            client.close();
+        }
+        String jti = request.getDecodedJwt().getPayload().getJwtId();
+        Assert.assertEquals(3, stub.getRequests().size());
+        for (StubServer.Recorded recorded : stub.getRequests())
+            Assert.assertEquals(jti, recorded.idempotencyKey);
+    }
+
+    @Test
+    public void verifyRetriesAreBounded() throws Exception {
+        final AtomicInteger status = new AtomicInteger(503);
+        stub.setBehavior(new StubServer.Behavior() {
+            @Override
+            public StubServer.Reply reply(int index, StubServer.Recorded request) {
+                return new StubServer.Reply(status.get(), "{}", 0);
+            }
+        });
+        S2PClient client = S2PClient.newBuilder()
+                .setBaseUrl(stub.getBaseUrl())
+                .setRetryPolicy(RetryPolicy.newBuilder().setMaxAttempts(4).setInitialBackoff(1, TimeUnit.MILLISECONDS).build())
+                .build();
+        try {
+            Assert.assertEquals(503, client.submit(newRequest("Program")).getStatus());
+            Assert.assertEquals(4, stub.getRequests().size());
+
+            // client errors are final
+            status.set(400);
+            Assert.assertEquals(400, client.submit(newRequest("Program")).getStatus());
+            Assert.assertEquals(5, stub.getRequests().size());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void verifySlowRequestIsHedged() throws Exception {
+        stub.setBehavior(new StubServer.Behavior() {
+            @Override
+            public StubServer.Reply reply(int index, StubServer.Recorded request) {
+                return new StubServer.Reply(200, "{}", index == 30 ? 5000 : 0);
+            }
+        });
+        S2PClient client = S2PClient.newBuilder()
+                .setBaseUrl(stub.getBaseUrl())
+                .setHedgePolicy(HedgePolicy.newBuilder().setPercentile(0.9).setMinDelay(1, TimeUnit.SECONDS).build())
+                .build();
+        try {
+            // the instant warm-up replies never reach the 1 s minimum delay, only the stalled request 30 does
+            S2PRequest request = newRequest("Program");
+            for (int i = 0; i < 30; i++)
+                client.submit(request);
+            Assert.assertEquals(0, client.getHedgeCount());
+
+            long start = System.nanoTime();
+            Assert.assertEquals(200, client.submit(request).getStatus());
+            Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+            Assert.assertEquals(1, client.getHedgeCount());
+
+            // the stalled primary is disconnected rather than holding its slot for the stub's 5 s delay
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (client.getInFlight() > 0 && System.nanoTime() < deadline)
+                Thread.sleep(10);
+            Assert.assertEquals(0, client.getInFlight());
+        } finally {
+            client.close();
+        }
+        Assert.assertEquals(32, stub.getRequests().size());
+        Assert.assertEquals(stub.getRequests().get(30).idempotencyKey, stub.getRequests().get(31).idempotencyKey);
+    }
+
+    @Test
+    public void verifyHedgedSubmissionRecordsItsWholeLatency() throws Exception {
+        stub.setBehavior(new StubServer.Behavior() {
+            @Override
+            public StubServer.Reply reply(int index, StubServer.Recorded request) {
+                return new StubServer.Reply(200, "{}", index == 0 ? 300 : index == 1 ? 5000 : index == 3 ? 100 : 0);
+            }
+        });
+        // the hedge delay is the latency of the previous submission
+        S2PClient client = S2PClient.newBuilder()
+                .setBaseUrl(stub.getBaseUrl())
+                .setHedgePolicy(HedgePolicy.newBuilder().setPercentile(0.5).setMinDelay(0, TimeUnit.MILLISECONDS)
+                        .setMinSamples(1).setWindowSize(1).build())
+                .build();
+        try {
+            S2PRequest request = newRequest("Program");
+            client.submit(request);
+            Assert.assertEquals(200, client.submit(request).getStatus());
+            Assert.assertEquals(1, client.getHedgeCount());
+
+            // the hedged submission took over 300 ms, not the few ms of the hedge, so a 100 ms reply is not hedged
+            Assert.assertEquals(200, client.submit(request).getStatus());
+            Assert.assertEquals(1, client.getHedgeCount());
+        } finally {
+            client.close();
+        }
+        Assert.assertEquals(4, stub.getRequests().size());
+    }
+
+    @Test
+    public void verifyCircuitBreakerOpensAndProbes() throws Exception {
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        stub.setBehavior(new StubServer.Behavior() {
+            @Override
+            public StubServer.Reply reply(int index, StubServer.Recorded request) {
+                return new StubServer.Reply(failing.get() ? 500 : 200, "{}", 0);
+            }
+        });
+        CircuitBreaker breaker = CircuitBreaker.newBuilder()
+                .setWindowSize(4)
+                .setMinimumCalls(4)
+                .setOpenDuration(200, TimeUnit.MILLISECONDS)
+                .build();
+        S2PClient client = S2PClient.newBuilder().setBaseUrl(stub.getBaseUrl()).setCircuitBreaker(breaker).build();
+        try {
+            S2PRequest request = newRequest("Program");
+            for (int i = 0; i < 4; i++)
+                Assert.assertEquals(500, client.submit(request).getStatus());
+            Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            try {
+                client.submit(request);
+                Assert.fail("the breaker must reject the request");
+            } catch (IOException e) {
+                Assert.assertEquals("S2PClient circuit breaker is open", e.getMessage());
+            }
+            Assert.assertEquals(4, stub.getRequests().size());
+            Assert.assertEquals(0, client.getInFlight());
+
+            Thread.sleep(250);
+            Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+            // a failed probe opens the breaker again
+            Assert.assertEquals(500, client.submit(request).getStatus());
+            Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+            Thread.sleep(250);
+            failing.set(false);
+            Assert.assertEquals(200, client.submit(request).getStatus());
+            Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        } finally {
+            client.close();
+        }
+    }
+
+    static S2PRequest newRequest(String programName) throws Exception {
+        return S2PRequest.newBuilder()
+                .setKeyID("kid")
+                .setRequest(S2PRequest.Request.SAVE_TO_SPAY_MEMBERSHIP)
+                .setRegistration(Registration.newBuilder()
+                        .setCardId("card-1")
+                        .setMembershipId("member-1")
+                        .setMembershipIDType(MembershipIDType.CARDNUM)
+                        .setProgramName(programName)
+                        .setBarcode(Barcode.newBuilder().setSymbology(Barcode.Symbology.QR_CODE).setData("data-1").build())
+                        .build())
+                .sign(KEY_PAIR.getPrivate());
+    }
+}
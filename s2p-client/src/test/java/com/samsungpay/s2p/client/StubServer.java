@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the S2P endpoints, recording the requests and replying as told, including with injected
+ * delays, failure statuses and dropped connections.
+ */
+class StubServer implements Closeable {
+    static {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Recorded> requests = new CopyOnWriteArrayList<Recorded>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private volatile Behavior behavior = new Behavior() {
+        @Override
+        public Reply reply(int index, Recorded request) {
+            return new Reply(200, "{}", 0);
+        }
+    };
+
+    StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int now = active.incrementAndGet();
+                int max;
+                while ((max = maxActive.get()) < now && !maxActive.compareAndSet(max, now)) {
+                    // retry
+                }
+                try {
+                    Recorded request = new Recorded(exchange, read(exchange.getRequestBody()));
+                    int index = requests.size();
+                    requests.add(request);
+                    Reply reply = behavior.reply(index, request);
+                    if (reply.delayMillis > 0)
+                        Thread.sleep(reply.delayMillis);
+                    if (reply.status == Reply.DROP)
+                        return;
+                    byte[] body = reply.body.getBytes("UTF-8");
+                    exchange.getResponseHeaders().set("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(reply.status, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body);
+                    out.close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    active.decrementAndGet();
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    void setBehavior(Behavior behavior) {
+        this.behavior = behavior;
+    }
+
+    List<Recorded> getRequests() {
+        return requests;
+    }
+
+    int getMaxActive() {
+        return maxActive.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer))
+            body.write(buffer, 0, read);
+        in.close();
+        return new String(body.toByteArray(), "UTF-8");
+    }
+
+    interface Behavior {
+        /**
+         * @param index   position of the request among all received
+         * @param request the request
+         */
+        Reply reply(int index, Recorded request);
+    }
+
+    static class Reply {
+        /**
+         * Status closing the connection without a response.
+         */
+        static final int DROP = -1;
+
+        final int status;
+        final String body;
+        final long delayMillis;
+
+        Reply(int status, String body, long delayMillis) {
+            this.status = status;
+            this.body = body;
+            this.delayMillis = delayMillis;
+        }
+    }
+
+    static class Recorded {
+        final String method;
+        final String path;
+        final String contentType;
+        final String authorization;
+        final String idempotencyKey;
+        final String body;
+        final int remotePort;
+
+        private Recorded(HttpExchange exchange, String body) {
+            this.method = exchange.getRequestMethod();
+            this.path = exchange.getRequestURI().getPath();
+            this.contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            this.authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            this.idempotencyKey = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+            this.body = body;
+            this.remotePort = exchange.getRemoteAddress().getPort();
+        }
+    }
+}
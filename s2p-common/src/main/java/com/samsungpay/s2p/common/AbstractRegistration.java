@@ -21,7 +21,9 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samsungpay.s2p.common.model.Fingerprint;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.StringUtils;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -35,11 +37,32 @@ public abstract class AbstractRegistration {
     }
 
     public String toJson() throws JsonProcessingException {
-        return newObjectMapper().writeValueAsString(this);
+        return SerializationContext.model().writeValueAsString(this);
+    }
+
+    /**
+     * UTF-8 encoded {@link #toJson()}.
+     * <p>
+     * Jackson's byte generator escapes characters outside the BMP, so the bytes are taken from the JSON string
+     * to stay identical to it.
+     */
+    public byte[] toJsonBytes() throws JsonProcessingException {
+        return StringUtils.getBytesUtf8(toJson());
+    }
+
+    /**
+     * Fingerprint of the registration content, equal for registrations of the same class serializing to the same
+     * JSON. Computed from {@link #toJson()} unless overridden with a structural fingerprint.
+     */
+    public Fingerprint getFingerprint() throws JsonProcessingException {
+        return Fingerprint.newHasher()
+                .putString(getClass().getName())
+                .putString(toJson())
+                .fingerprint();
     }
 
     public <T extends AbstractRegistration> T readJson(String json, Class<T> valueType) throws IOException {
-        return newObjectMapper().readValue(json, valueType);
+        return SerializationContext.model().readValue(json, valueType);
     }
 
     public String base64Encoded() throws UnsupportedEncodingException, JsonProcessingException {
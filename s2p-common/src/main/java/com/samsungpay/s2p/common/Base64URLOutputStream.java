@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Incremental, unpadded Base64URL encoder.
+ * <p>
+ * Produces the same output as {@link org.apache.commons.codec.binary.Base64#encodeBase64URLSafeString(byte[])}
+ * over everything written, without buffering the whole input. {@link #finish()} writes the trailing partial
+ * group and leaves the underlying stream open.
+ */
+public class Base64URLOutputStream extends FilterOutputStream {
+    private static final byte[] ALPHABET = {
+            'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P',
+            'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', 'a', 'b', 'c', 'd', 'e', 'f',
+            'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v',
+            'w', 'x', 'y', 'z', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-', '_'
+    };
+    private static final int CHUNK_SIZE = 1024;
+
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkLength;
+    private final byte[] pending = new byte[3];
+    private int pendingLength;
+
+    public Base64URLOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    public static int encodedLength(int length) {
+        return (length / 3) * 4 + (length % 3 == 0 ? 0 : length % 3 + 1);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        pending[pendingLength++] = (byte) b;
+        if (pendingLength == 3) {
+            encodeGroup(pending, 0);
+            pendingLength = 0;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int end = off + len;
+        while (pendingLength != 0 && off < end)
+            write(b[off++]);
+        while (end - off >= 3) {
+            encodeGroup(b, off);
+            off += 3;
+        }
+        while (off < end)
+            pending[pendingLength++] = b[off++];
+    }
+
+    /**
+     * Writes the trailing partial group and the buffered output without closing the underlying stream.
+     */
+    public void finish() throws IOException {
+        if (pendingLength > 0) {
+            ensureCapacity(4);
+            int b0 = pending[0] & 0xff;
+            int b1 = pendingLength > 1 ? pending[1] & 0xff : 0;
+            chunk[chunkLength++] = ALPHABET[b0 >>> 2];
+            chunk[chunkLength++] = ALPHABET[((b0 & 0x03) << 4) | (b1 >>> 4)];
+            if (pendingLength > 1)
+                chunk[chunkLength++] = ALPHABET[(b1 & 0x0f) << 2];
+            pendingLength = 0;
+        }
+        flushChunk();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushChunk();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+
+    private void encodeGroup(byte[] b, int off) throws IOException {
+        ensureCapacity(4);
+        int bits = ((b[off] & 0xff) << 16) | ((b[off + 1] & 0xff) << 8) | (b[off + 2] & 0xff);
+        chunk[chunkLength++] = ALPHABET[(bits >>> 18) & 0x3f];
+        chunk[chunkLength++] = ALPHABET[(bits >>> 12) & 0x3f];
+        chunk[chunkLength++] = ALPHABET[(bits >>> 6) & 0x3f];
+        chunk[chunkLength++] = ALPHABET[bits & 0x3f];
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (chunkLength + length > CHUNK_SIZE)
+            flushChunk();
+    }
+
+    private void flushChunk() throws IOException {
+        if (chunkLength > 0) {
+            out.write(chunk, 0, chunkLength);
+            chunkLength = 0;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory ring of private keys loaded from PEM files.
+ * <p>
+ * Each PEM path and passphrase pair is parsed once. A daemon thread compares the SHA-256 digest of each file's
+ * content at a fixed interval and atomically swaps in the re-parsed key when it changes, so looking a key up never
+ * touches the disk. Comparing content rather than modification time and size catches a rotated key of the same
+ * length copied with its timestamp preserved or written within the file system's timestamp granularity; a
+ * {@code WatchService} would report neither reliably on platforms where it falls back to polling timestamps.
+ * A file that cannot be read or parsed, e.g. while it is being rewritten, keeps the previous key and is retried
+ * on the next check.
+ */
+public class KeyRing {
+    private static final long DEFAULT_CHECK_INTERVAL_MILLIS = 1000;
+    private static final KeyRing DEFAULT = new KeyRing(DEFAULT_CHECK_INTERVAL_MILLIS);
+
+    private final long checkIntervalMillis;
+    private final ConcurrentMap<KeySource, LoadedKey> keys = new ConcurrentHashMap<KeySource, LoadedKey>();
+    private ScheduledExecutorService watcher;
+
+    /**
+     * @param checkIntervalMillis interval between two checks of the PEM files
+     */
+    public KeyRing(long checkIntervalMillis) {
+        if (checkIntervalMillis <= 0)
+            throw new IllegalArgumentException("KeyRing checkIntervalMillis must be positive");
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    public static KeyRing getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param keyPEMPath path of the PEM file
+     * @param passphrase passphrase of an encrypted PEM, or null
+     * @return the parsed private key, loaded on first use
+     */
+    public RSAPrivateKey getKey(String keyPEMPath, String passphrase) throws NoSuchAlgorithmException, InvalidKeyException, InvalidKeySpecException, NoSuchProviderException, IOException {
+        if (keyPEMPath == null || keyPEMPath.isEmpty())
+            throw new IllegalArgumentException("KeyRing keyPEMPath is missing");
+
+        KeySource source = new KeySource(keyPEMPath, passphrase);
+        LoadedKey loaded = keys.get(source);
+        if (loaded == null) {
+            loaded = source.load();
+            LoadedKey existing = keys.putIfAbsent(source, loaded);
+            if (existing != null)
+                loaded = existing;
+            startWatcher();
+        }
+        return loaded.key;
+    }
+
+    public void invalidate(String keyPEMPath) {
+        for (KeySource source : keys.keySet()) {
+            if (source.path.equals(keyPEMPath))
+                keys.remove(source);
+        }
+    }
+
+    /**
+     * Stops watching the PEM files. Keys already loaded stay available but are no longer reloaded.
+     */
+    public synchronized void close() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+            watcher = null;
+        }
+    }
+
+    private synchronized void startWatcher() {
+        if (watcher != null)
+            return;
+        watcher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "s2p-key-ring");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        watcher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                reloadChanged();
+            }
+        }, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void reloadChanged() {
+        for (Map.Entry<KeySource, LoadedKey> entry : keys.entrySet()) {
+            KeySource source = entry.getKey();
+            LoadedKey loaded = entry.getValue();
+            if (!loaded.isStale(source))
+                continue;
+            try {
+                keys.replace(source, loaded, source.load());
+            } catch (Exception e) {
+                // keep serving the previous key, retried on the next check
+            }
+        }
+    }
+
+    private static final class KeySource {
+        private final String path;
+        private final String passphrase;
+
+        private KeySource(String path, String passphrase) {
+            this.path = path;
+            this.passphrase = passphrase == null || passphrase.isEmpty() ? null : passphrase;
+        }
+
+        private LoadedKey load() throws NoSuchAlgorithmException, InvalidKeyException, InvalidKeySpecException, NoSuchProviderException, IOException {
+            // digest before parsing, so that a change made while parsing is picked up by the next check
+            byte[] digest = digest();
+            RSAPrivateKey key = passphrase == null ? Util.readPrivateKeyFromPEM(path) : Util.readPrivateKeyFromPEM(path, passphrase);
+            return new LoadedKey(key, digest);
+        }
+
+        private byte[] digest() throws NoSuchAlgorithmException, IOException {
+            return MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(Paths.get(path)));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof KeySource))
+                return false;
+            KeySource other = (KeySource) o;
+            return path.equals(other.path) && (passphrase == null ? other.passphrase == null : passphrase.equals(other.passphrase));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * path.hashCode() + (passphrase == null ? 0 : passphrase.hashCode());
+        }
+    }
+
+    private static final class LoadedKey {
+        private final RSAPrivateKey key;
+        private final byte[] digest;
+
+        private LoadedKey(RSAPrivateKey key, byte[] digest) {
+            this.key = key;
+            this.digest = digest;
+        }
+
+        private boolean isStale(KeySource source) {
+            try {
+                return !MessageDigest.isEqual(digest, source.digest());
+            } catch (Exception e) {
+                // unreadable for now, keep the key until the file can be read again
+                return false;
+            }
+        }
+    }
+}
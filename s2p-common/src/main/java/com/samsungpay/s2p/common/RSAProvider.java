@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchProviderException;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.Security;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JCA provider used to parse RSA keys and compute RS256 signatures, selected with {@link Util#setRSAProvider}
+ * or the {@code s2p.rsa.provider} system property.
+ */
+public enum RSAProvider {
+    /**
+     * The JDK SunRsaSign provider.
+     */
+    JDK("SunRsaSign"),
+
+    /**
+     * BouncyCastle.
+     */
+    BOUNCY_CASTLE(BouncyCastleProvider.PROVIDER_NAME),
+
+    /**
+     * The fastest of the installed providers, measured once with {@link #benchmark(int)} when selected.
+     */
+    AUTO(null);
+
+    private static final int AUTO_ITERATIONS = 100;
+
+    private final String providerName;
+
+    RSAProvider(String providerName) {
+        this.providerName = providerName;
+    }
+
+    /**
+     * Measures RS256 signing with a freshly generated 2048-bit key on each installed provider.
+     *
+     * @param iterations number of measured signatures per provider, after as many warm-up signatures
+     * @return average nanoseconds per signature keyed by provider name, in {@link RSAProvider} order
+     */
+    public static Map<String, Long> benchmark(int iterations) throws GeneralSecurityException {
+        if (iterations < 1)
+            throw new IllegalArgumentException("RSAProvider benchmark iterations must be positive");
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        byte[] encodedKey = generator.generateKeyPair().getPrivate().getEncoded();
+        byte[] input = new byte[1024];
+
+        Map<String, Long> nanosPerSignature = new LinkedHashMap<String, Long>();
+        for (RSAProvider candidate : values()) {
+            if (candidate == AUTO)
+                continue;
+            Provider provider = Security.getProvider(candidate.providerName);
+            if (provider == null)
+                continue;
+
+            PrivateKey key = KeyFactory.getInstance("RSA", provider).generatePrivate(new PKCS8EncodedKeySpec(encodedKey));
+            Signature signature = Signature.getInstance("SHA256withRSA", provider);
+            signature.initSign(key);
+            for (int i = 0; i < iterations; i++) {
+                signature.update(input);
+                signature.sign();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                signature.update(input);
+                signature.sign();
+            }
+            nanosPerSignature.put(provider.getName(), (System.nanoTime() - start) / iterations);
+        }
+        return nanosPerSignature;
+    }
+
+    Provider resolve() throws GeneralSecurityException {
+        if (this != AUTO) {
+            Provider provider = Security.getProvider(providerName);
+            if (provider == null)
+                throw new NoSuchProviderException("RSAProvider " + providerName + " is not installed");
+            return provider;
+        }
+
+        String fastest = null;
+        long fastestNanos = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> entry : benchmark(AUTO_ITERATIONS).entrySet()) {
+            if (entry.getValue() < fastestNanos) {
+                fastest = entry.getKey();
+                fastestNanos = entry.getValue();
+            }
+        }
+        if (fastest == null)
+            throw new NoSuchProviderException("RSAProvider found no installed provider");
+        return Security.getProvider(fastest);
+    }
+}
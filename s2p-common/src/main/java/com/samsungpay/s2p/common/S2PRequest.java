@@ -19,19 +19,40 @@ package com.samsungpay.s2p.common;
 
 import com.fasterxml.jackson.annotation.*;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.samsungpay.s2p.common.jwt.*;
-import com.samsungpay.s2p.common.jwt.algorithm.RS256Algorithm;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.StringUtils;
+import org.apache.commons.codec.digest.DigestUtils;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.security.PrivateKey;
 import java.security.SignatureException;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.commons.codec.CharEncoding.UTF_8;
 
@@ -46,23 +67,113 @@ public class S2PRequest {
         private String type;
         private String contentType;
         private String uri;
+        private byte[] prefix;
+        // never updated after construction, only cloned
+        private MessageDigest prefixDigest;
 
         Request(String type, String contentType, String uri) {
             this.type = type;
             this.contentType = contentType;
             this.uri = uri;
+            this.prefix = StringUtils.getBytesUtf8(type + "\n" + contentType + "\n" + uri + "\n");
+            this.prefixDigest = DigestUtils.getSha256Digest();
+            this.prefixDigest.update(prefix);
         }
 
+        /**
+         * @return the HTTP method
+         */
+        public String getType() {
+            return type;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @return the path of the endpoint, relative to the S2P host
+         */
+        public String getUri() {
+            return uri;
+        }
+
+        /**
+         * @param uri request uri
+         * @return the request of the uri, or null if none matches
+         */
+        public static Request forUri(String uri) {
+            for (Request request : values()) {
+                if (request.uri.equals(uri))
+                    return request;
+            }
+            return null;
+        }
+
+        /**
+         * The body is UTF-8 encoded straight into a copy of the digest of the request line, without building the
+         * whole request as a string.
+         *
+         * @param bodyAsJson request body
+         * @return Base64URL-encoded SHA-256 hash of the request
+         */
         public String getEncodedRequestHash(String bodyAsJson) {
-            return Util.getBase64EncodedHash(this.type + "\n" + this.contentType + "\n" + this.uri + "\n" + bodyAsJson);
+            final MessageDigest digest = newDigest();
+            Utf8Writer writer = new Utf8Writer(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    digest.update((byte) b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    digest.update(b, off, len);
+                }
+            });
+            try {
+                writer.write(bodyAsJson);
+                writer.finish();
+            } catch (IOException e) {
+                // not thrown by the digest
+                throw new IllegalStateException(e);
+            }
+            return Base64.encodeBase64URLSafeString(digest.digest());
+        }
+
+        /**
+         * Same hash as {@link #getEncodedRequestHash(String)}, computed over an already UTF-8 encoded body
+         *
+         * @param body UTF-8 encoded request body
+         * @return Base64URL-encoded SHA-256 hash of the request
+         */
+        public String getEncodedRequestHash(byte[] body) {
+            MessageDigest digest = newDigest();
+            digest.update(body);
+            return Base64.encodeBase64URLSafeString(digest.digest());
         }
-    }
 
-    private static ObjectMapper newObjectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        return mapper;
+        /**
+         * Same hash as {@link #getEncodedRequestHash(byte[])}, computed with a digest owned by the caller.
+         *
+         * @param digest SHA-256 digest, reset first
+         */
+        String getEncodedRequestHash(MessageDigest digest, byte[] body, int offset, int length) {
+            digest.reset();
+            digest.update(prefix);
+            digest.update(body, offset, length);
+            return Base64.encodeBase64URLSafeString(digest.digest());
+        }
+
+        private MessageDigest newDigest() {
+            try {
+                return (MessageDigest) prefixDigest.clone();
+            } catch (CloneNotSupportedException e) {
+                // providers are not required to support cloning
+                MessageDigest digest = DigestUtils.getSha256Digest();
+                digest.update(prefix);
+                return digest;
+            }
+        }
     }
 
     @JsonProperty("jwt")
@@ -74,19 +185,124 @@ public class S2PRequest {
     @JsonProperty("uri")
     private String uri;
 
+    @JsonIgnore
+    private DecodedJWT decodedJwt;
+
     private S2PRequest() {
     }
 
+    S2PRequest(String jwt, String reg, Request request) {
+        this.jwt = jwt;
+        this.reg = reg;
+        this.uri = request.uri;
+    }
+
+    /**
+     * Reverse of {@link #encode()}. Only the envelope is parsed, the JWT and the registration are decoded on demand.
+     *
+     * @param encoded Base64URL-encoded request
+     * @return the request
+     * @throws IllegalArgumentException if the request is not strictly Base64URL-encoded
+     */
+    public static S2PRequest decode(String encoded) throws IOException {
+        if (encoded == null || encoded.isEmpty())
+            throw new IllegalArgumentException("S2PRequest encoded request is missing");
+        S2PRequest s2PRequest = SerializationContext.model().readValue(StringUtils.newStringUtf8(Util.decodeBase64URL(encoded)), S2PRequest.class);
+        if (s2PRequest.jwt == null || s2PRequest.reg == null)
+            throw new IllegalArgumentException("S2PRequest jwt and reg are required");
+        return s2PRequest;
+    }
+
+    public String getJwt() {
+        return jwt;
+    }
+
+    /**
+     * @return the registration JSON exactly as it was hashed and signed
+     */
+    public String getReg() {
+        return reg;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * @return the request matching the uri, or null if none matches
+     */
+    public Request getRequest() {
+        return Request.forUri(uri);
+    }
+
+    public DecodedJWT getDecodedJwt() {
+        if (decodedJwt == null)
+            decodedJwt = DecodedJWT.decode(jwt);
+        return decodedJwt;
+    }
+
+    /**
+     * @param valueType the registration class
+     * @return the registration parsed from {@link #getReg()}
+     */
+    public <T extends AbstractRegistration> T getRegistration(Class<T> valueType) throws IOException {
+        return SerializationContext.model().readValue(reg, valueType);
+    }
+
+    /**
+     * Verifies the JWT signature and that its {@code jti} is the hash of this request.
+     *
+     * @param verifier verifier holding the public key of the JWT key id
+     * @throws SignatureException if the signature or the request hash does not match
+     */
+    public void verify(JWTVerifier verifier) throws SignatureException, IOException {
+        if (verifier == null)
+            throw new IllegalArgumentException("S2PRequest verifier is missing");
+        DecodedJWT decoded = getDecodedJwt();
+        verifier.verify(decoded);
+
+        Request request = getRequest();
+        if (request == null)
+            throw new SignatureException("S2PRequest uri " + uri + " is unknown");
+        if (!request.getEncodedRequestHash(reg).equals(decoded.getPayload().getJwtId()))
+            throw new SignatureException("S2PRequest jti does not match the request hash");
+    }
+
     public static Builder newBuilder() {
         return new Builder();
     }
 
+    /**
+     * Core-sized pool keeping CPU-bound signing off the callers' threads.
+     */
+    private static class SigningExecutor {
+        private static final ExecutorService INSTANCE = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "s2p-signer-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
     public static class Builder {
+        private static final int BULK_CHUNK_SIZE = 64;
+        private static final int MAX_BULK_CHUNKS_IN_FLIGHT = 2 * Runtime.getRuntime().availableProcessors();
+
         private String keyID;
         private AbstractRegistration registration;
         private Request request;
         private String keyPEMPath;
         private String passphrase;
+        private SignerService signerService = SignerService.getDefault();
+        private KeyRing keyRing = KeyRing.getDefault();
+        private JWSAlgorithm algorithm;
+        private ExecutorService executor;
+        private Executor keyExecutor;
+        private Date expirationTime;
 
         private Builder() {
         }
@@ -116,6 +332,95 @@ public class S2PRequest {
             return this;
         }
 
+        public Builder setSignerService(SignerService signerService) {
+            this.signerService = signerService;
+            return this;
+        }
+
+        public Builder setKeyRing(KeyRing keyRing) {
+            this.keyRing = keyRing;
+            return this;
+        }
+
+        /**
+         * @param algorithm the JWS algorithm, inferred from the private key type when not set
+         */
+        public Builder setAlgorithm(JWSAlgorithm algorithm) {
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        /**
+         * @param executor executor running the bulk and asynchronous signing, a shared pool sized to the processors
+         *                 when not set
+         */
+        public Builder setExecutor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @param keyExecutor executor loading the PEM key of {@link #signAsync()}, which may block on the file system,
+         *                    e.g. a virtual thread executor. The signing executor when not set
+         */
+        public Builder setKeyExecutor(Executor keyExecutor) {
+            this.keyExecutor = keyExecutor;
+            return this;
+        }
+
+        /**
+         * @param expirationTime expiration time carried as the {@code exp} claim of the JWT, none when not set
+         */
+        public Builder setExpirationTime(Date expirationTime) {
+            this.expirationTime = expirationTime;
+            return this;
+        }
+
+        /**
+         * Same as {@link #sign()} without blocking the calling thread. The key is loaded on the key executor and the
+         * request is signed on the signing executor. Later changes to this builder do not affect the result.
+         *
+         * @return future completed with the signed request, or exceptionally with the error {@link #sign()} throws
+         */
+        public CompletableFuture<S2PRequest> signAsync() {
+            if (keyPEMPath == null || keyPEMPath.isEmpty())
+                throw new IllegalArgumentException("S2PRequest keyPEMPath is missing");
+            if (keyRing == null)
+                throw new IllegalArgumentException("S2PRequest key ring is missing");
+            validate();
+            if (registration == null)
+                throw new IllegalArgumentException("S2PRequest registration object is missing");
+
+            Builder snapshot = copy();
+            Executor signing = signingExecutor();
+            return CompletableFuture
+                    .supplyAsync(() -> {
+                        try {
+                            return snapshot.retrieveKey();
+                        } catch (Exception e) {
+                            throw new CompletionException(e);
+                        }
+                    }, keyExecutor == null ? signing : keyExecutor)
+                    .thenApplyAsync(snapshot::signUnchecked, signing);
+        }
+
+        /**
+         * Same as {@link #sign(PrivateKey)} on the signing executor.
+         *
+         * @param privateKey the private key
+         * @return future completed with the signed request, or exceptionally with the error signing throws
+         */
+        public CompletableFuture<S2PRequest> signAsync(PrivateKey privateKey) {
+            if (privateKey == null)
+                throw new IllegalArgumentException("S2PRequest private key is missing");
+            validate();
+            if (registration == null)
+                throw new IllegalArgumentException("S2PRequest registration object is missing");
+
+            Builder snapshot = copy();
+            return CompletableFuture.supplyAsync(() -> snapshot.signUnchecked(privateKey), signingExecutor());
+        }
+
         public S2PRequest sign() throws IllegalArgumentException, SignatureException, NoSuchAlgorithmException, InvalidKeyException, IOException, InvalidKeySpecException, NoSuchProviderException {
             return sign(retrieveKey());
         }
@@ -123,41 +428,267 @@ public class S2PRequest {
         public S2PRequest sign(RSAPrivateKey privateKey) throws IllegalArgumentException, SignatureException, NoSuchAlgorithmException, InvalidKeyException, JsonProcessingException, UnsupportedEncodingException {
             if (privateKey == null)
                 throw new IllegalArgumentException("RSAPrivateKey is missing");
-            if (keyID == null || keyID.isEmpty())
-                throw new IllegalArgumentException("S2PRequest keyID is missing");
+            return sign((PrivateKey) privateKey);
+        }
+
+        /**
+         * Signs with an RSA, P-256 EC or Ed25519 private key.
+         *
+         * @param privateKey the private key
+         * @return the signed request
+         */
+        public S2PRequest sign(PrivateKey privateKey) throws IllegalArgumentException, SignatureException, NoSuchAlgorithmException, InvalidKeyException, JsonProcessingException, UnsupportedEncodingException {
+            if (privateKey == null)
+                throw new IllegalArgumentException("S2PRequest private key is missing");
+            validate();
             if (registration == null)
                 throw new IllegalArgumentException("S2PRequest registration object is missing");
+            return sign(privateKey, registration);
+        }
+
+        /**
+         * Signs registrations in parallel with the key read from the PEM path, see {@link #signAll(Iterator, PrivateKey)}.
+         */
+        public List<SigningResult> signAll(Iterable<? extends AbstractRegistration> registrations) throws IOException, GeneralSecurityException, InterruptedException {
+            if (registrations == null)
+                throw new IllegalArgumentException("S2PRequest registrations are missing");
+            return signAll(registrations.iterator(), retrieveKey());
+        }
+
+        public List<SigningResult> signAll(Iterable<? extends AbstractRegistration> registrations, PrivateKey privateKey) throws InterruptedException {
+            if (registrations == null)
+                throw new IllegalArgumentException("S2PRequest registrations are missing");
+            return signAll(registrations.iterator(), privateKey);
+        }
+
+        /**
+         * Serializes, hashes and signs registrations in parallel with the key id, request and algorithm of this
+         * builder. The registration set on the builder is ignored.
+         * <p>
+         * The iterator is consumed on the calling thread, in chunks handed to the executor. At most twice as many
+         * chunks as processors are in flight, the next one is submitted as one completes, and the chunks in flight
+         * are cancelled if the calling thread is interrupted. A registration that cannot be signed yields a failed
+         * result instead of aborting the others.
+         *
+         * @param registrations registrations to sign
+         * @param privateKey    the private key
+         * @return one result per registration, in input order
+         */
+        public List<SigningResult> signAll(Iterator<? extends AbstractRegistration> registrations, final PrivateKey privateKey) throws InterruptedException {
+            if (registrations == null)
+                throw new IllegalArgumentException("S2PRequest registrations are missing");
+            if (privateKey == null)
+                throw new IllegalArgumentException("S2PRequest private key is missing");
+            validate();
+
+            ExecutorService executor = signingExecutor();
+            final BlockingQueue<Integer> completed = new LinkedBlockingQueue<Integer>();
+            List<Future<List<SigningResult>>> chunks = new ArrayList<Future<List<SigningResult>>>();
+            int inFlight = 0;
+            int index = 0;
+            try {
+                do {
+                    // a bounded window keeps a large input from queueing ahead of the other users of the executor
+                    while (inFlight < MAX_BULK_CHUNKS_IN_FLIGHT && registrations.hasNext()) {
+                        final int first = index;
+                        final int number = chunks.size();
+                        final List<AbstractRegistration> chunk = new ArrayList<AbstractRegistration>(BULK_CHUNK_SIZE);
+                        while (chunk.size() < BULK_CHUNK_SIZE && registrations.hasNext())
+                            chunk.add(registrations.next());
+                        index += chunk.size();
+                        chunks.add(executor.submit(new Callable<List<SigningResult>>() {
+                            @Override
+                            public List<SigningResult> call() {
+                                try {
+                                    return signChunk(first, chunk, privateKey);
+                                } finally {
+                                    completed.add(number);
+                                }
+                            }
+                        }));
+                        inFlight++;
+                    }
+                    if (inFlight == 0)
+                        break;
+                    completed.take();
+                    inFlight--;
+                } while (true);
+            } finally {
+                if (inFlight > 0) {
+                    for (Future<List<SigningResult>> chunk : chunks)
+                        chunk.cancel(true);
+                }
+            }
+
+            List<SigningResult> results = new ArrayList<SigningResult>(index);
+            for (Future<List<SigningResult>> chunk : chunks) {
+                try {
+                    results.addAll(chunk.get());
+                } catch (ExecutionException e) {
+                    // item failures are caught in the chunk, only errors get here
+                    if (e.getCause() instanceof Error)
+                        throw (Error) e.getCause();
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return results;
+        }
+
+        private List<SigningResult> signChunk(int first, List<AbstractRegistration> chunk, PrivateKey privateKey) {
+            List<SigningResult> results = new ArrayList<SigningResult>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                AbstractRegistration item = chunk.get(i);
+                try {
+                    if (item == null)
+                        throw new IllegalArgumentException("S2PRequest registration object is missing");
+                    results.add(SigningResult.signed(first + i, item, sign(privateKey, item)));
+                } catch (Exception e) {
+                    results.add(SigningResult.failed(first + i, item, e));
+                }
+            }
+            return results;
+        }
+
+        private ExecutorService signingExecutor() {
+            return executor == null ? SigningExecutor.INSTANCE : executor;
+        }
+
+        private Builder copy() {
+            Builder copy = new Builder();
+            copy.keyID = keyID;
+            copy.registration = registration;
+            copy.request = request;
+            copy.keyPEMPath = keyPEMPath;
+            copy.passphrase = passphrase;
+            copy.signerService = signerService;
+            copy.keyRing = keyRing;
+            copy.algorithm = algorithm;
+            copy.expirationTime = expirationTime;
+            return copy;
+        }
+
+        private S2PRequest signUnchecked(PrivateKey privateKey) {
+            try {
+                return sign(privateKey, registration);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }
+
+        /**
+         * @param privateKey key the request is signed with, which determines the algorithm when none is set
+         * @return key of the request signed by this builder in a {@link SignedLinkCache}
+         */
+        SignedLinkCache.Key linkKey(PrivateKey privateKey) throws JsonProcessingException {
+            validate();
+            if (registration == null)
+                throw new IllegalArgumentException("S2PRequest registration object is missing");
+            JWSAlgorithm jwsAlgorithm = algorithm != null ? algorithm : JWSAlgorithm.forKey(privateKey);
+            long exp = expirationTime == null ? SignedLinkCache.Key.NO_EXPIRATION : expirationTime.getTime();
+            return new SignedLinkCache.Key(keyID, request, jwsAlgorithm, exp, request.getEncodedRequestHash(registration.toJson()));
+        }
+
+        private void validate() {
+            if (keyID == null || keyID.isEmpty())
+                throw new IllegalArgumentException("S2PRequest keyID is missing");
             if (request == null)
                 throw new IllegalArgumentException("S2PRequest request enum is missing");
-
-            S2PRequest s2PRequest = new S2PRequest();
-            s2PRequest.jwt = signJWT(privateKey);
-            s2PRequest.reg = registration.toJson();
-            s2PRequest.uri = request.uri;
-            return s2PRequest;
+            if (signerService == null)
+                throw new IllegalArgumentException("S2PRequest signer service is missing");
         }
 
-        private RSAPrivateKey retrieveKey() throws NoSuchAlgorithmException, InvalidKeyException, InvalidKeySpecException, NoSuchProviderException, IOException {
-            if (keyPEMPath == null || keyPEMPath.isEmpty())
-                throw new IllegalArgumentException("S2PRequest keyPEMPath is missing");
-            return passphrase == null || passphrase.isEmpty() ? Util.readPrivateKeyFromPEM(keyPEMPath) : Util.readPrivateKeyFromPEM(keyPEMPath, passphrase);
+        private S2PRequest sign(PrivateKey privateKey, AbstractRegistration registration) throws SignatureException, NoSuchAlgorithmException, InvalidKeyException, JsonProcessingException, UnsupportedEncodingException {
+            Algorithm jwsAlgorithm = this.algorithm == null
+                    ? signerService.getAlgorithm(keyID, privateKey)
+                    : signerService.getAlgorithm(keyID, this.algorithm, privateKey);
+            return sign(jwsAlgorithm, registration);
         }
 
-        private String signJWT(RSAPrivateKey privateKey) throws InvalidKeyException, NoSuchAlgorithmException, JsonProcessingException, UnsupportedEncodingException, SignatureException {
-            Algorithm algorithm = new RS256Algorithm(privateKey);
-            Header header = Header.newBuilder()
-                    .keyId(keyID)
-                    .build();
+        /**
+         * Signs with the given algorithm instance instead of one from the signer service.
+         */
+        S2PRequest sign(Algorithm jwsAlgorithm, AbstractRegistration registration) throws SignatureException, JsonProcessingException {
+            // Serialize once, the same JSON is hashed into the jti and carried as reg
+            String reg = registration.toJson();
+
             Payload payload = Payload.newBuilder()
-                    .jwtId(request.getEncodedRequestHash(registration.toJson()))
+                    .jwtId(request.getEncodedRequestHash(reg))
+                    .expirationTime(expirationTime)
                     .build();
-            JWT jwt = new SignatureJWT(header, payload);
-            return jwt.sign(algorithm);
+            return new S2PRequest(JWTSigner.forKeyId(keyID, jwsAlgorithm.getType()).sign(payload, jwsAlgorithm), reg, request);
+        }
+
+        RSAPrivateKey retrieveKey() throws NoSuchAlgorithmException, InvalidKeyException, InvalidKeySpecException, NoSuchProviderException, IOException {
+            if (keyPEMPath == null || keyPEMPath.isEmpty())
+                throw new IllegalArgumentException("S2PRequest keyPEMPath is missing");
+            if (keyRing == null)
+                throw new IllegalArgumentException("S2PRequest key ring is missing");
+            return keyRing.getKey(keyPEMPath, passphrase);
         }
     }
 
     public String encode() throws JsonProcessingException, UnsupportedEncodingException {
-        final String asJson = newObjectMapper().writeValueAsString(this);
+        final String asJson = SerializationContext.model().writeValueAsString(this);
         return Base64.encodeBase64URLSafeString(asJson.getBytes(UTF_8));
     }
+
+    /**
+     * Streams the same output as {@link #encode()} into the given stream, which is left open.
+     *
+     * @param out destination of the Base64URL-encoded request
+     */
+    public void encodeTo(OutputStream out) throws IOException {
+        Base64URLOutputStream base64 = new Base64URLOutputStream(out);
+        encodeTo(new Utf8Writer(base64), base64);
+    }
+
+    /**
+     * Encodes through a writer and Base64URL stream owned by the caller, the writer writing into the stream.
+     */
+    void encodeTo(Utf8Writer writer, Base64URLOutputStream base64) throws IOException {
+        // Characters are encoded by the writer, as in encode(), so that non-BMP characters stay unescaped
+        SerializationContext.model().writeValue(writer, this);
+        writer.finish();
+        base64.finish();
+    }
+
+    /**
+     * Writes the same output as {@link #encode()} as US-ASCII bytes at the buffer's position.
+     *
+     * @param buffer destination of the Base64URL-encoded request
+     * @throws java.nio.BufferOverflowException if the buffer has not enough remaining space
+     */
+    public void encodeTo(final ByteBuffer buffer) throws IOException {
+        encodeTo(new OutputStream() {
+            @Override
+            public void write(int b) {
+                buffer.put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                buffer.put(b, off, len);
+            }
+        });
+    }
+
+    /**
+     * Appends the same output as {@link #encode()} to the given sink.
+     *
+     * @param appendable destination of the Base64URL-encoded request
+     */
+    public void encodeTo(final Appendable appendable) throws IOException {
+        encodeTo(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                appendable.append((char) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                for (int i = off; i < off + len; i++)
+                    appendable.append((char) b[i]);
+            }
+        });
+    }
 }
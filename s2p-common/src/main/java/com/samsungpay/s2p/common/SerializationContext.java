@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.samsungpay.s2p.common.jwt.Header;
+import com.samsungpay.s2p.common.jwt.Payload;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared, thread-safe serialization context.
+ * <p>
+ * Each context wraps one configured {@link ObjectMapper} and keeps a pre-resolved {@link ObjectWriter} and
+ * {@link ObjectReader} per model class, so bean introspection and serializer construction happen once per class
+ * instead of once per call. Cached writers leave the target they write to open.
+ */
+public final class SerializationContext {
+    /**
+     * Field based mapper used for registrations and the S2P request envelope.
+     */
+    private static final SerializationContext MODEL = new SerializationContext(AbstractRegistration.newObjectMapper(), S2PRequest.class);
+
+    /**
+     * Default mapper used for the JWT header and payload.
+     */
+    private static final SerializationContext JWT = new SerializationContext(new ObjectMapper(), Header.class, Payload.class);
+
+    private final ObjectMapper mapper;
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<Class<?>, ObjectWriter>();
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<Class<?>, ObjectReader>();
+
+    private SerializationContext(ObjectMapper mapper, Class<?>... types) {
+        this.mapper = mapper;
+        register(types);
+    }
+
+    public static SerializationContext model() {
+        return MODEL;
+    }
+
+    public static SerializationContext jwt() {
+        return JWT;
+    }
+
+    /**
+     * Pre-resolves the writer and reader of the given classes.
+     *
+     * @param types model classes
+     */
+    public void register(Class<?>... types) {
+        for (Class<?> type : types) {
+            writerFor(type);
+            readerFor(type);
+        }
+    }
+
+    public ObjectWriter writerFor(Class<?> type) {
+        ObjectWriter writer = writers.get(type);
+        if (writer == null) {
+            writer = mapper.writerFor(type).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            ObjectWriter existing = writers.putIfAbsent(type, writer);
+            if (existing != null)
+                writer = existing;
+        }
+        return writer;
+    }
+
+    public ObjectReader readerFor(Class<?> type) {
+        ObjectReader reader = readers.get(type);
+        if (reader == null) {
+            reader = mapper.readerFor(type);
+            ObjectReader existing = readers.putIfAbsent(type, reader);
+            if (existing != null)
+                reader = existing;
+        }
+        return reader;
+    }
+
+    public String writeValueAsString(Object value) throws JsonProcessingException {
+        if (value == null)
+            return mapper.writeValueAsString(null);
+        return writerFor(value.getClass()).writeValueAsString(value);
+    }
+
+    public void writeValue(Writer writer, Object value) throws IOException {
+        if (value == null)
+            mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(writer, null);
+        else
+            writerFor(value.getClass()).writeValue(writer, value);
+    }
+
+    public <T> T readValue(String json, Class<T> valueType) throws IOException {
+        return readerFor(valueType).readValue(json);
+    }
+}
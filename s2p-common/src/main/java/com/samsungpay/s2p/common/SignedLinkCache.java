@@ -0,0 +1,309 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+import com.samsungpay.s2p.common.jwt.JWSAlgorithm;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of encoded signed requests, so that rendering the same card again costs a lookup instead of a
+ * signature.
+ * <p>
+ * Entries are keyed by key id, request type, algorithm, expiration time and the SHA-256 request hash signed as
+ * the jti, so a lookup serializes and hashes the registration but does not sign it. The algorithm is resolved from
+ * the key when the builder does not set it. A request is only served with the expiration its builder asks for, so a
+ * builder computing a new expiration time for every call always misses; a fixed expiration time or none is needed
+ * for hits. Entries expire after the time to live, or earlier when the JWT expires, and the least recently used
+ * entries are evicted once the estimated size of the entries exceeds the byte budget.
+ * Concurrent misses of the same key may each sign; the last result is kept.
+ * <p>
+ * A key id is assumed to always designate the same key: after a key rotation under an unchanged key id, cached
+ * requests keep the previous signature until they expire.
+ */
+public class SignedLinkCache {
+    // map entry, key and value objects besides the strings
+    private static final int ENTRY_OVERHEAD = 160;
+
+    private final long maxBytes;
+    private final long timeToLiveMillis;
+    private final long expiryMarginMillis;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    private SignedLinkCache(Builder builder) {
+        this.maxBytes = builder.maxBytes;
+        this.timeToLiveMillis = builder.timeToLiveMillis;
+        this.expiryMarginMillis = builder.expiryMarginMillis;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the cached encoded request of the builder's registration, signing it with the key read from the PEM
+     * path on a miss.
+     *
+     * @param builder builder holding the key id, request, registration and key
+     * @return the Base64URL-encoded request, see {@link S2PRequest#encode()}
+     */
+    public String encode(S2PRequest.Builder builder) throws IOException, GeneralSecurityException {
+        if (builder == null)
+            throw new IllegalArgumentException("SignedLinkCache builder is missing");
+        return encode(builder, builder.retrieveKey());
+    }
+
+    /**
+     * Same as {@link #encode(S2PRequest.Builder)}, signing with the given key on a miss.
+     */
+    public String encode(S2PRequest.Builder builder, PrivateKey privateKey) throws IOException, GeneralSecurityException {
+        if (builder == null)
+            throw new IllegalArgumentException("SignedLinkCache builder is missing");
+        if (privateKey == null)
+            throw new IllegalArgumentException("SignedLinkCache private key is missing");
+        Key key = builder.linkKey(privateKey);
+        String encoded = get(key);
+        return encoded != null ? encoded : put(key, builder.sign(privateKey));
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return estimated memory held by the entries
+     */
+    public synchronized long getByteSize() {
+        return bytes;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return entries removed to stay within the byte budget
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @return entries removed because they expired
+     */
+    public long getExpirationCount() {
+        return expirations.get();
+    }
+
+    /**
+     * @return hits per lookup, 0 before the first lookup
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    private String get(Key key) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > System.currentTimeMillis()) {
+                    hits.incrementAndGet();
+                    return entry.encoded;
+                }
+                remove(key, entry);
+                expirations.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private String put(Key key, S2PRequest request) throws IOException {
+        String encoded = request.encode();
+        long now = System.currentTimeMillis();
+        long expiresAt = now + timeToLiveMillis;
+        Date exp = request.getDecodedJwt().getPayload().getExpirationTime();
+        if (exp != null)
+            expiresAt = Math.min(expiresAt, exp.getTime() - expiryMarginMillis);
+        if (expiresAt <= now)
+            return encoded;
+
+        Entry entry = new Entry(encoded, expiresAt, ENTRY_OVERHEAD + 2L * (encoded.length() + key.keyID.length() + key.requestHash.length()));
+        if (entry.size > maxBytes)
+            return encoded;
+        synchronized (this) {
+            Entry previous = entries.get(key);
+            if (previous != null)
+                remove(key, previous);
+            entries.put(key, entry);
+            bytes += entry.size;
+            evict(now);
+        }
+        return encoded;
+    }
+
+    private void evict(long now) {
+        // expired entries go first, then the least recently used ones
+        for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext() && bytes > maxBytes; ) {
+            Entry entry = it.next().getValue();
+            if (entry.expiresAt <= now) {
+                it.remove();
+                bytes -= entry.size;
+                expirations.incrementAndGet();
+            }
+        }
+        for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext() && bytes > maxBytes; ) {
+            Entry entry = it.next().getValue();
+            it.remove();
+            bytes -= entry.size;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        bytes -= entry.size;
+    }
+
+    /**
+     * Identity of a signed request: the same key, request type, algorithm, expiration time and request hash yield
+     * the same encoded request, apart from the signature randomness of ES256. The hash is the jti, so a different
+     * registration cannot share an entry without a SHA-256 collision.
+     */
+    static final class Key {
+        static final long NO_EXPIRATION = Long.MIN_VALUE;
+
+        private final String keyID;
+        private final S2PRequest.Request request;
+        private final JWSAlgorithm algorithm;
+        private final long expirationTime;
+        private final String requestHash;
+
+        /**
+         * @param expirationTime the {@code exp} in milliseconds, {@link #NO_EXPIRATION} when the request has none
+         */
+        Key(String keyID, S2PRequest.Request request, JWSAlgorithm algorithm, long expirationTime, String requestHash) {
+            this.keyID = keyID;
+            this.request = request;
+            this.algorithm = algorithm;
+            this.expirationTime = expirationTime;
+            this.requestHash = requestHash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            Key other = (Key) o;
+            return keyID.equals(other.keyID) && request == other.request && algorithm == other.algorithm
+                    && expirationTime == other.expirationTime && requestHash.equals(other.requestHash);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 31 * keyID.hashCode() + request.hashCode();
+            result = 31 * result + (int) (expirationTime ^ expirationTime >>> 32);
+            return 31 * result + requestHash.hashCode();
+        }
+    }
+
+    private static final class Entry {
+        private final String encoded;
+        private final long expiresAt;
+        private final long size;
+
+        private Entry(String encoded, long expiresAt, long size) {
+            this.encoded = encoded;
+            this.expiresAt = expiresAt;
+            this.size = size;
+        }
+    }
+
+    public static class Builder {
+        private long maxBytes = 64L * 1024 * 1024;
+        private long timeToLiveMillis = TimeUnit.MINUTES.toMillis(10);
+        private long expiryMarginMillis = TimeUnit.MINUTES.toMillis(1);
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxBytes budget of the estimated entry sizes, 64 MB by default
+         */
+        public Builder setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * @param timeToLive time an entry is served after signing, 10 minutes by default
+         * @param unit       unit of the time to live
+         */
+        public Builder setTimeToLive(long timeToLive, TimeUnit unit) {
+            this.timeToLiveMillis = unit.toMillis(timeToLive);
+            return this;
+        }
+
+        /**
+         * @param margin time before the JWT expiration at which an entry stops being served, so that links are
+         *               not handed out about to expire, 1 minute by default
+         * @param unit   unit of the margin
+         */
+        public Builder setExpiryMargin(long margin, TimeUnit unit) {
+            this.expiryMarginMillis = unit.toMillis(margin);
+            return this;
+        }
+
+        public SignedLinkCache build() throws IllegalArgumentException {
+            if (maxBytes < 1)
+                throw new IllegalArgumentException("SignedLinkCache maxBytes must be positive");
+            if (timeToLiveMillis < 1)
+                throw new IllegalArgumentException("SignedLinkCache time to live must be positive");
+            if (expiryMarginMillis < 0)
+                throw new IllegalArgumentException("SignedLinkCache expiry margin must not be negative");
+            return new SignedLinkCache(this);
+        }
+    }
+}
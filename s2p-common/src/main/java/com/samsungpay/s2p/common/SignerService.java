@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+import com.samsungpay.s2p.common.jwt.Algorithm;
+import com.samsungpay.s2p.common.jwt.JWSAlgorithm;
+
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe JWS signing shared across threads.
+ * <p>
+ * {@link Signature} is not thread-safe and costly to create and initialize, so a lock-free pool of initialized
+ * instances is kept per key id. Signing borrows an instance, which is reset by {@link Signature#sign()} and
+ * handed back afterwards. Requesting a key id with a different private key replaces its pool.
+ */
+public class SignerService {
+    private static final SignerService DEFAULT = new SignerService(Runtime.getRuntime().availableProcessors() * 2);
+
+    private final int maxIdlePerKey;
+    private final ConcurrentMap<String, SignaturePool> pools = new ConcurrentHashMap<String, SignaturePool>();
+
+    /**
+     * @param maxIdlePerKey maximum number of idle {@link Signature} instances kept per key id
+     */
+    public SignerService(int maxIdlePerKey) {
+        if (maxIdlePerKey < 1)
+            throw new IllegalArgumentException("SignerService maxIdlePerKey must be positive");
+        this.maxIdlePerKey = maxIdlePerKey;
+    }
+
+    public static SignerService getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param keyId      the key id
+     * @param privateKey the private key registered under the key id
+     * @return thread-safe algorithm matching the key type, backed by the pool of the key id
+     */
+    public Algorithm getAlgorithm(String keyId, PrivateKey privateKey) throws NoSuchAlgorithmException, InvalidKeyException {
+        if (privateKey == null)
+            throw new IllegalArgumentException("SignerService keyId and privateKey are required");
+        return getAlgorithm(keyId, JWSAlgorithm.forKey(privateKey), privateKey);
+    }
+
+    /**
+     * @param keyId        the key id
+     * @param jwsAlgorithm the signature algorithm
+     * @param privateKey   the private key registered under the key id
+     * @return thread-safe algorithm backed by the pool of the key id
+     */
+    public Algorithm getAlgorithm(String keyId, JWSAlgorithm jwsAlgorithm, PrivateKey privateKey) throws NoSuchAlgorithmException, InvalidKeyException {
+        if (keyId == null || jwsAlgorithm == null || privateKey == null)
+            throw new IllegalArgumentException("SignerService keyId, algorithm and privateKey are required");
+
+        SignaturePool pool = pools.get(keyId);
+        if (pool != null && pool.isFor(jwsAlgorithm, privateKey))
+            return pool;
+
+        // validates the key type, e.g. the P-256 curve of ES256
+        jwsAlgorithm.newAlgorithm(privateKey);
+        pool = new SignaturePool(jwsAlgorithm, privateKey, maxIdlePerKey);
+        pools.put(keyId, pool);
+        return pool;
+    }
+
+    public void evict(String keyId) {
+        pools.remove(keyId);
+    }
+
+    private static final class SignaturePool implements Algorithm {
+        private static final Charset CHARSET = Charset.forName("UTF-8");
+
+        private final JWSAlgorithm jwsAlgorithm;
+        private final Provider provider;
+        private final PrivateKey key;
+        private final int maxIdle;
+        private final Queue<Signature> idle = new ConcurrentLinkedQueue<Signature>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        private SignaturePool(JWSAlgorithm jwsAlgorithm, PrivateKey key, int maxIdle) throws NoSuchAlgorithmException, InvalidKeyException {
+            this.jwsAlgorithm = jwsAlgorithm;
+            // the other algorithms use the first provider offering them
+            this.provider = jwsAlgorithm == JWSAlgorithm.RS256 ? Util.getRSAProvider() : null;
+            this.key = key;
+            this.maxIdle = maxIdle;
+            // fail fast on an unusable key
+            release(newSignature());
+        }
+
+        private boolean isFor(JWSAlgorithm otherAlgorithm, PrivateKey otherKey) {
+            return jwsAlgorithm == otherAlgorithm && (key == otherKey || key.equals(otherKey));
+        }
+
+        @Override
+        public String getType() {
+            return jwsAlgorithm.name();
+        }
+
+        @Override
+        public byte[] sign(String plainTxt) throws SignatureException {
+            byte[] content = plainTxt.getBytes(CHARSET);
+            return sign(content, 0, content.length);
+        }
+
+        @Override
+        public byte[] sign(byte[] content, int offset, int length) throws SignatureException {
+            Signature signature = acquire();
+            // an instance that failed may be left mid-operation, so it is not returned to the pool
+            signature.update(content, offset, length);
+            byte[] signed = signature.sign();
+            release(signature);
+            return jwsAlgorithm.toJWSSignature(signed);
+        }
+
+        private Signature acquire() throws SignatureException {
+            Signature signature = idle.poll();
+            if (signature != null) {
+                idleCount.decrementAndGet();
+                return signature;
+            }
+            try {
+                return newSignature();
+            } catch (GeneralSecurityException e) {
+                throw new SignatureException("Unable to initialize " + jwsAlgorithm.getJcaName(), e);
+            }
+        }
+
+        private void release(Signature signature) {
+            if (idleCount.incrementAndGet() <= maxIdle)
+                idle.offer(signature);
+            else
+                idleCount.decrementAndGet();
+        }
+
+        private Signature newSignature() throws NoSuchAlgorithmException, InvalidKeyException {
+            Signature signature = provider == null
+                    ? Signature.getInstance(jwsAlgorithm.getJcaName())
+                    : Signature.getInstance(jwsAlgorithm.getJcaName(), provider);
+            signature.initSign(key);
+            return signature;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+import com.samsungpay.s2p.common.jwt.Algorithm;
+import com.samsungpay.s2p.common.jwt.JWSAlgorithm;
+
+import java.io.Closeable;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Groups single signing requests of many concurrent callers into batches handled by a few dedicated workers.
+ * <p>
+ * A worker takes the oldest waiting registration and, as long as every other worker is busy, collects more until
+ * the batch is full or the window since the first one has elapsed. It signs the batch back to back with its own
+ * {@link java.security.Signature} and buffers, which stay warm between batches. While another worker is idle nothing
+ * more is claimed, so a burst is spread over the workers rather than serialized onto one. A larger window and batch
+ * size favour throughput, a smaller window favours latency; a zero window signs whatever is waiting without delay.
+ * <p>
+ * At most {@code queueCapacity} registrations wait for a worker; beyond that a submission fails right away with a
+ * {@link RejectedExecutionException} instead of queueing without bound.
+ */
+public class SigningCoalescer implements Closeable {
+    private final S2PRequest.Builder template;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final BlockingQueue<Pending> queue;
+    private final List<Thread> workers = new ArrayList<Thread>();
+    private final AtomicInteger idleWorkers = new AtomicInteger();
+    private volatile boolean closed;
+
+    private SigningCoalescer(Builder builder) throws NoSuchAlgorithmException, InvalidKeyException {
+        this.template = S2PRequest.newBuilder()
+                .setKeyID(builder.keyID)
+                .setRequest(builder.request);
+        this.maxBatchSize = builder.maxBatchSize;
+        this.windowNanos = builder.windowNanos;
+        this.queue = new LinkedBlockingQueue<Pending>(builder.queueCapacity);
+
+        JWSAlgorithm jwsAlgorithm = builder.algorithm == null ? JWSAlgorithm.forKey(builder.privateKey) : builder.algorithm;
+        for (int i = 0; i < builder.workers; i++) {
+            // each worker owns its algorithm instance, created here so that an unusable key fails the build
+            Thread worker = new Thread(new Worker(jwsAlgorithm.newAlgorithm(builder.privateKey)), "s2p-coalescer-" + (i + 1));
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+        for (Thread worker : workers)
+            worker.start();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * @param registration the registration
+     * @return future completed with the signed request, or exceptionally with the signing error or a
+     * {@link RejectedExecutionException} when {@code queueCapacity} registrations are already waiting
+     */
+    public CompletableFuture<S2PRequest> submit(AbstractRegistration registration) {
+        if (registration == null)
+            throw new IllegalArgumentException("SigningCoalescer registration is missing");
+        Pending pending = new Pending(registration);
+        if (!queue.offer(pending)) {
+            pending.future.completeExceptionally(new RejectedExecutionException("SigningCoalescer queue is full"));
+            return pending.future;
+        }
+        // a registration queued concurrently with close() may have been missed by it
+        if (closed && queue.remove(pending))
+            pending.future.completeExceptionally(new IllegalStateException("SigningCoalescer is closed"));
+        return pending.future;
+    }
+
+    /**
+     * @return number of workers waiting for a registration
+     */
+    int getIdleWorkers() {
+        return idleWorkers.get();
+    }
+
+    /**
+     * Stops the workers. Registrations not yet signed complete exceptionally.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers)
+            worker.interrupt();
+        for (Pending pending = queue.poll(); pending != null; pending = queue.poll())
+            pending.future.completeExceptionally(new IllegalStateException("SigningCoalescer is closed"));
+    }
+
+    private static class Pending {
+        private final AbstractRegistration registration;
+        private final CompletableFuture<S2PRequest> future = new CompletableFuture<S2PRequest>();
+
+        private Pending(AbstractRegistration registration) {
+            this.registration = registration;
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final Algorithm algorithm;
+        private final List<Pending> batch = new ArrayList<Pending>(maxBatchSize);
+
+        private Worker(Algorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    collect();
+                    for (Pending pending : batch) {
+                        try {
+                            pending.future.complete(template.sign(algorithm, pending.registration));
+                        } catch (Exception e) {
+                            pending.future.completeExceptionally(e);
+                        }
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // closed
+            } finally {
+                for (Pending pending : batch)
+                    pending.future.completeExceptionally(new IllegalStateException("SigningCoalescer is closed"));
+            }
+        }
+
+        private void collect() throws InterruptedException {
+            idleWorkers.incrementAndGet();
+            try {
+                batch.add(queue.take());
+            } finally {
+                idleWorkers.decrementAndGet();
+            }
+            // an idle worker signs the next registration sooner than this one would after its batch
+            long deadline = System.nanoTime() + windowNanos;
+            while (batch.size() < maxBatchSize && idleWorkers.get() == 0) {
+                Pending next = queue.poll();
+                if (next == null) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0)
+                        break;
+                    next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                }
+                batch.add(next);
+            }
+        }
+    }
+
+    public static class Builder {
+        private String keyID;
+        private S2PRequest.Request request;
+        private PrivateKey privateKey;
+        private JWSAlgorithm algorithm;
+        private int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        private int maxBatchSize = 32;
+        private long windowNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        private int queueCapacity = 4096;
+
+        private Builder() {
+        }
+
+        public Builder setKeyID(String keyID) {
+            this.keyID = keyID;
+            return this;
+        }
+
+        public Builder setRequest(S2PRequest.Request request) {
+            this.request = request;
+            return this;
+        }
+
+        public Builder setPrivateKey(PrivateKey privateKey) {
+            this.privateKey = privateKey;
+            return this;
+        }
+
+        /**
+         * @param algorithm the JWS algorithm, inferred from the private key type when not set
+         */
+        public Builder setAlgorithm(JWSAlgorithm algorithm) {
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        /**
+         * @param workers number of signing threads, half the processors by default
+         */
+        public Builder setWorkers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * @param maxBatchSize maximum number of registrations a worker signs per batch, 32 by default
+         */
+        public Builder setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * @param window longest time a worker waits to fill a batch after its first registration, 1 ms by default
+         * @param unit   unit of the window
+         */
+        public Builder setWindow(long window, TimeUnit unit) {
+            this.windowNanos = unit.toNanos(window);
+            return this;
+        }
+
+        /**
+         * @param queueCapacity maximum number of registrations waiting for a worker, 4096 by default
+         */
+        public Builder setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public SigningCoalescer build() throws IllegalArgumentException, NoSuchAlgorithmException, InvalidKeyException {
+            if (keyID == null || keyID.isEmpty())
+                throw new IllegalArgumentException("SigningCoalescer keyID is missing");
+            if (request == null)
+                throw new IllegalArgumentException("SigningCoalescer request enum is missing");
+            if (privateKey == null)
+                throw new IllegalArgumentException("SigningCoalescer private key is missing");
+            if (workers < 1)
+                throw new IllegalArgumentException("SigningCoalescer workers must be positive");
+            if (maxBatchSize < 1)
+                throw new IllegalArgumentException("SigningCoalescer maxBatchSize must be positive");
+            if (windowNanos < 0)
+                throw new IllegalArgumentException("SigningCoalescer window must not be negative");
+            if (queueCapacity < 1)
+                throw new IllegalArgumentException("SigningCoalescer queueCapacity must be positive");
+            return new SigningCoalescer(this);
+        }
+    }
+}
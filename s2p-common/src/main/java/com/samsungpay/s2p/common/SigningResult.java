@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+/**
+ * Outcome of signing one registration of a bulk request, either the signed request or the error that prevented it.
+ */
+public class SigningResult {
+    private final long index;
+    private final AbstractRegistration registration;
+    private final S2PRequest request;
+    private final Exception error;
+
+    private SigningResult(long index, AbstractRegistration registration, S2PRequest request, Exception error) {
+        this.index = index;
+        this.registration = registration;
+        this.request = request;
+        this.error = error;
+    }
+
+    public static SigningResult signed(long index, AbstractRegistration registration, S2PRequest request) {
+        return new SigningResult(index, registration, request, null);
+    }
+
+    public static SigningResult failed(long index, AbstractRegistration registration, Exception error) {
+        return new SigningResult(index, registration, null, error);
+    }
+
+    /**
+     * @return position of the registration in the input
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    public AbstractRegistration getRegistration() {
+        return registration;
+    }
+
+    /**
+     * @return the signed request, or null if signing failed
+     */
+    public S2PRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * @return the error that prevented signing, or null if signed
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    public boolean isSigned() {
+        return error == null;
+    }
+}
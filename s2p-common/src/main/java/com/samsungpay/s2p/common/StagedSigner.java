@@ -0,0 +1,444 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+import com.samsungpay.s2p.common.jwt.Algorithm;
+import com.samsungpay.s2p.common.jwt.JWSAlgorithm;
+import com.samsungpay.s2p.common.jwt.JWTSigner;
+import com.samsungpay.s2p.common.jwt.Payload;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Signs a stream of registrations through a chain of stages, one thread per stage, handing items over in a ring
+ * of preallocated slots.
+ * <p>
+ * The calling thread publishes registrations into the ring, each stage follows the previous one around it, and
+ * the last stage hands the encoded requests to the sink in input order before the slot is reused. Each slot keeps
+ * its serialization buffer and each stage its digest, signature and encoding buffers across items and runs, so
+ * the work per item is mostly the serialization and the signature themselves. {@link #run} reports how many items
+ * each stage handled per second of busy time, the slowest stage bounding the throughput of the whole chain.
+ * <p>
+ * A signer runs one stream at a time, concurrent {@link #run} calls are serialized.
+ */
+public class StagedSigner {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 10000;
+
+    public enum Stage {
+        VALIDATE, SERIALIZE, HASH, SIGN, ENCODE
+    }
+
+    /**
+     * Receives the results of a run, on the encode stage thread and in input order.
+     */
+    public interface Sink {
+        /**
+         * @param result  the signed request or the error of the registration
+         * @param encoded the Base64URL-encoded request as US-ASCII bytes, only valid during the call, or null if
+         *                signing failed
+         * @param length  number of encoded bytes
+         * @throws IOException aborts the run
+         */
+        void accept(SigningResult result, byte[] encoded, int length) throws IOException;
+    }
+
+    private final String keyID;
+    private final S2PRequest.Request request;
+    private final Slot[] slots;
+    private final int mask;
+
+    private final MessageDigest digest = DigestUtils.getSha256Digest();
+    private final Algorithm algorithm;
+    private final JWTSigner jwtSigner;
+    private final SlotBuffer encoded = new SlotBuffer();
+    private final Base64URLOutputStream encodedBase64 = new Base64URLOutputStream(encoded);
+    private final Utf8Writer encodedWriter = new Utf8Writer(encodedBase64);
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong[] completed = new AtomicLong[Stage.values().length];
+    private final long[] items = new long[completed.length];
+    private final long[] busyNanos = new long[completed.length];
+    private volatile long last;
+    private volatile Throwable failure;
+
+    private StagedSigner(Builder builder) throws GeneralSecurityException, IOException {
+        this.keyID = builder.keyID;
+        this.request = builder.request;
+        this.slots = new Slot[builder.ringSize];
+        for (int i = 0; i < slots.length; i++)
+            slots[i] = new Slot();
+        this.mask = builder.ringSize - 1;
+        JWSAlgorithm jwsAlgorithm = builder.algorithm == null ? JWSAlgorithm.forKey(builder.privateKey) : builder.algorithm;
+        this.algorithm = jwsAlgorithm.newAlgorithm(builder.privateKey);
+        this.jwtSigner = JWTSigner.forKeyId(keyID, jwsAlgorithm.name());
+        for (int i = 0; i < completed.length; i++)
+            completed[i] = new AtomicLong();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Signs the registrations, returning once all results have been handed to the sink.
+     * <p>
+     * A registration that cannot be signed yields a failed result instead of aborting the others. An exception of
+     * the sink or the iterator aborts the run and is rethrown. An interrupted run stops the stages and returns only
+     * after they have finished.
+     *
+     * @param registrations registrations to sign, consumed on the calling thread
+     * @param sink          receiver of the results
+     * @return throughput of each stage, in stage order
+     */
+    public synchronized List<StageStatistics> run(Iterator<? extends AbstractRegistration> registrations, Sink sink) throws IOException, InterruptedException {
+        if (registrations == null)
+            throw new IllegalArgumentException("StagedSigner registrations are missing");
+        if (sink == null)
+            throw new IllegalArgumentException("StagedSigner sink is missing");
+
+        published.set(-1);
+        for (int i = 0; i < completed.length; i++) {
+            completed[i].set(-1);
+            items[i] = 0;
+            busyNanos[i] = 0;
+        }
+        last = Long.MAX_VALUE;
+        failure = null;
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (Stage stage : Stage.values()) {
+            Thread thread = new Thread(new StageRunner(stage, sink), "s2p-stage-" + stage.name().toLowerCase());
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+        for (Thread thread : threads)
+            thread.start();
+
+        long sequence = 0;
+        try {
+            AtomicLong released = completed[completed.length - 1];
+            while (failure == null && registrations.hasNext()) {
+                int idle = 0;
+                // wait until the slot has been handed to the sink in the previous lap
+                while (released.get() < sequence - slots.length && failure == null)
+                    idle = idle(idle);
+                slots[(int) sequence & mask].publish(sequence, registrations.next());
+                published.set(sequence++);
+            }
+        } catch (RuntimeException e) {
+            fail(e);
+        } finally {
+            last = sequence - 1;
+            joinAll(threads);
+        }
+
+        Throwable error = failure;
+        if (error instanceof InterruptedException)
+            throw (InterruptedException) error;
+        if (error instanceof IOException)
+            throw (IOException) error;
+        if (error instanceof RuntimeException)
+            throw (RuntimeException) error;
+        if (error instanceof Error)
+            throw (Error) error;
+
+        List<StageStatistics> statistics = new ArrayList<StageStatistics>(completed.length);
+        for (Stage stage : Stage.values())
+            statistics.add(new StageStatistics(stage, items[stage.ordinal()], busyNanos[stage.ordinal()]));
+        return statistics;
+    }
+
+    /**
+     * Waits for the stage threads even when interrupted, so that none is still using the slots when the next run
+     * resets them. An interrupt fails the run, which stops the stages, and is rethrown by it; the interrupt flag is
+     * restored if another failure came first.
+     */
+    private void joinAll(List<Thread> threads) {
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    fail(e);
+                }
+            }
+        }
+        if (interrupted && !(failure instanceof InterruptedException))
+            Thread.currentThread().interrupt();
+    }
+
+    private void fail(Throwable error) {
+        if (failure == null)
+            failure = error;
+    }
+
+    private static int idle(int tries) {
+        if (tries < SPIN_TRIES)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(PARK_NANOS);
+        return tries + 1;
+    }
+
+    private void process(Stage stage, Slot slot, Sink sink) throws IOException {
+        if (stage == Stage.ENCODE) {
+            encode(slot, sink);
+            return;
+        }
+        if (slot.error != null)
+            return;
+        try {
+            switch (stage) {
+                case VALIDATE:
+                    if (slot.registration == null)
+                        throw new IllegalArgumentException("S2PRequest registration object is missing");
+                    break;
+                case SERIALIZE:
+                    slot.body.reset();
+                    SerializationContext.model().writeValue(slot.bodyWriter, slot.registration);
+                    slot.bodyWriter.finish();
+                    slot.reg = new String(slot.body.array(), 0, slot.body.size(), UTF8);
+                    break;
+                case HASH:
+                    slot.jti = request.getEncodedRequestHash(digest, slot.body.array(), 0, slot.body.size());
+                    break;
+                case SIGN:
+                    slot.jwt = jwtSigner.sign(Payload.newBuilder().jwtId(slot.jti).build(), algorithm);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown stage " + stage);
+            }
+        } catch (Exception e) {
+            slot.error = e;
+        }
+    }
+
+    private void encode(Slot slot, Sink sink) throws IOException {
+        SigningResult result;
+        if (slot.error == null) {
+            S2PRequest s2PRequest = new S2PRequest(slot.jwt, slot.reg, request);
+            encoded.reset();
+            try {
+                s2PRequest.encodeTo(encodedWriter, encodedBase64);
+                result = SigningResult.signed(slot.sequence, slot.registration, s2PRequest);
+            } catch (IOException e) {
+                result = SigningResult.failed(slot.sequence, slot.registration, e);
+            }
+        } else {
+            result = SigningResult.failed(slot.sequence, slot.registration, slot.error);
+        }
+        slot.clear();
+        if (result.isSigned())
+            sink.accept(result, encoded.array(), encoded.size());
+        else
+            sink.accept(result, null, 0);
+    }
+
+    private class StageRunner implements Runnable {
+        private final Stage stage;
+        private final Sink sink;
+
+        private StageRunner(Stage stage, Sink sink) {
+            this.stage = stage;
+            this.sink = sink;
+        }
+
+        @Override
+        public void run() {
+            int index = stage.ordinal();
+            AtomicLong upstream = index == 0 ? published : completed[index - 1];
+            AtomicLong own = completed[index];
+            long next = own.get() + 1;
+            int idle = 0;
+            try {
+                while (failure == null) {
+                    long available = upstream.get();
+                    if (available < next) {
+                        if (next > last)
+                            return;
+                        idle = idle(idle);
+                        continue;
+                    }
+                    idle = 0;
+                    long start = System.nanoTime();
+                    for (long sequence = next; sequence <= available; sequence++)
+                        process(stage, slots[(int) sequence & mask], sink);
+                    busyNanos[index] += System.nanoTime() - start;
+                    items[index] += available - next + 1;
+                    own.set(available);
+                    next = available + 1;
+                }
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }
+    }
+
+    private static final class Slot {
+        private final SlotBuffer body = new SlotBuffer();
+        private final Utf8Writer bodyWriter = new Utf8Writer(body);
+        private long sequence;
+        private AbstractRegistration registration;
+        private Exception error;
+        private String reg;
+        private String jti;
+        private String jwt;
+
+        private void publish(long sequence, AbstractRegistration registration) {
+            this.sequence = sequence;
+            this.registration = registration;
+        }
+
+        private void clear() {
+            registration = null;
+            error = null;
+            reg = null;
+            jti = null;
+            jwt = null;
+        }
+    }
+
+    private static final class SlotBuffer extends ByteArrayOutputStream {
+        private static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+        private SlotBuffer() {
+            super(1024);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+
+        @Override
+        public synchronized void reset() {
+            super.reset();
+            // do not pin an unusually large registration to the slot
+            if (buf.length > MAX_RETAINED_SIZE)
+                buf = new byte[1024];
+        }
+    }
+
+    /**
+     * Items handled by one stage during a run and the time it spent on them, excluding the time waiting for the
+     * previous stage.
+     */
+    public static class StageStatistics {
+        private final Stage stage;
+        private final long items;
+        private final long busyNanos;
+
+        private StageStatistics(Stage stage, long items, long busyNanos) {
+            this.stage = stage;
+            this.items = items;
+            this.busyNanos = busyNanos;
+        }
+
+        public Stage getStage() {
+            return stage;
+        }
+
+        public long getItems() {
+            return items;
+        }
+
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+
+        /**
+         * @return items per second of busy time, the most the stage could sustain on its own
+         */
+        public double getItemsPerSecond() {
+            return busyNanos == 0 ? 0 : items * 1e9 / busyNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-9s %10d items %12.0f items/s", stage, items, getItemsPerSecond());
+        }
+    }
+
+    public static class Builder {
+        private String keyID;
+        private S2PRequest.Request request;
+        private PrivateKey privateKey;
+        private JWSAlgorithm algorithm;
+        private int ringSize = 1024;
+
+        private Builder() {
+        }
+
+        public Builder setKeyID(String keyID) {
+            this.keyID = keyID;
+            return this;
+        }
+
+        public Builder setRequest(S2PRequest.Request request) {
+            this.request = request;
+            return this;
+        }
+
+        public Builder setPrivateKey(PrivateKey privateKey) {
+            this.privateKey = privateKey;
+            return this;
+        }
+
+        /**
+         * @param algorithm the JWS algorithm, inferred from the private key type when not set
+         */
+        public Builder setAlgorithm(JWSAlgorithm algorithm) {
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        /**
+         * @param ringSize number of slots, a power of two, 1024 by default
+         */
+        public Builder setRingSize(int ringSize) {
+            this.ringSize = ringSize;
+            return this;
+        }
+
+        public StagedSigner build() throws IllegalArgumentException, GeneralSecurityException, IOException {
+            if (keyID == null || keyID.isEmpty())
+                throw new IllegalArgumentException("StagedSigner keyID is missing");
+            if (request == null)
+                throw new IllegalArgumentException("StagedSigner request enum is missing");
+            if (privateKey == null)
+                throw new IllegalArgumentException("StagedSigner private key is missing");
+            if (ringSize < 1 || Integer.bitCount(ringSize) != 1)
+                throw new IllegalArgumentException("StagedSigner ringSize must be a power of two");
+            return new StagedSigner(this);
+        }
+    }
+}
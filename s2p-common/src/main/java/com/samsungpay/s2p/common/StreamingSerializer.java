@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Base class of the hand-written, reflection-free model serializers.
+ * <p>
+ * Implementations write the exact same JSON as the field based {@link AbstractRegistration#newObjectMapper()}
+ * would, directly through the {@link JsonGenerator}. Model classes select them with
+ * {@code @JsonSerialize(using = ...)}, and serializers of enclosing models call {@link #write} directly.
+ *
+ * @param <T> model type
+ */
+public abstract class StreamingSerializer<T> extends StdSerializer<T> {
+    private static final long serialVersionUID = 1L;
+
+    protected StreamingSerializer(Class<T> type) {
+        super(type);
+    }
+
+    public abstract void write(T value, JsonGenerator gen) throws IOException;
+
+    @Override
+    public void serialize(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        write(value, gen);
+    }
+
+    public void writeNullable(T value, JsonGenerator gen) throws IOException {
+        if (value == null)
+            gen.writeNull();
+        else
+            write(value, gen);
+    }
+
+    public void writeList(List<? extends T> values, JsonGenerator gen) throws IOException {
+        if (values == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartArray();
+        for (T value : values)
+            writeNullable(value, gen);
+        gen.writeEndArray();
+    }
+
+    protected static void writeStringField(JsonGenerator gen, SerializableString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null)
+            gen.writeNull();
+        else
+            gen.writeString(value);
+    }
+
+    protected static void writeEnumField(JsonGenerator gen, SerializableString name, Enum<?> value) throws IOException {
+        writeStringField(gen, name, value == null ? null : value.name());
+    }
+}
@@ -40,15 +40,55 @@ import java.security.interfaces.RSAPrivateKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.List;
+import java.util.Locale;
 
 public final class Util {
     static {
         Security.addProvider(new BouncyCastleProvider());
     }
 
+    private static final String RSA_PROVIDER_PROPERTY = "s2p.rsa.provider";
+    private static volatile Provider rsaProvider;
+
     private Util() {
     }
 
+    /**
+     * Selects the provider used to parse RSA keys and compute RS256 signatures. Keys and signer pools created
+     * before the selection keep their provider.
+     *
+     * @param choice the provider, {@link RSAProvider#AUTO} runs the micro-benchmark now
+     * @return the selected provider
+     */
+    public static Provider setRSAProvider(RSAProvider choice) throws GeneralSecurityException {
+        if (choice == null)
+            throw new IllegalArgumentException("RSAProvider is missing");
+        Provider provider = choice.resolve();
+        rsaProvider = provider;
+        return provider;
+    }
+
+    /**
+     * @return the provider used for RSA, selected on first use from the {@code s2p.rsa.provider} system property
+     * ({@code JDK}, {@code BOUNCY_CASTLE} or {@code AUTO}), {@code JDK} by default
+     */
+    public static Provider getRSAProvider() {
+        Provider provider = rsaProvider;
+        if (provider != null)
+            return provider;
+        synchronized (Util.class) {
+            if (rsaProvider == null) {
+                String configured = System.getProperty(RSA_PROVIDER_PROPERTY, RSAProvider.JDK.name());
+                try {
+                    rsaProvider = RSAProvider.valueOf(configured.trim().toUpperCase(Locale.ENGLISH)).resolve();
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Unable to select RSA provider " + configured, e);
+                }
+            }
+            return rsaProvider;
+        }
+    }
+
     public static boolean containsNullValue(List<? extends I18n> i18ns) {
         if (i18ns == null)
             return true;
@@ -64,6 +104,64 @@ public final class Util {
         return Base64.encodeBase64URLSafeString(binaryData);
     }
 
+    /**
+     * Strict decoder of unpadded Base64URL, the reverse of {@link Base64URLOutputStream}.
+     * <p>
+     * {@link Base64#decodeBase64(String)} skips characters outside the alphabet, so differing strings decode to the
+     * same bytes. Here any character outside {@code [A-Za-z0-9_-]}, an impossible length or non-zero trailing bits
+     * are rejected, so each accepted string decodes to exactly one byte sequence.
+     *
+     * @param encoded Base64URL string
+     * @param start   index of the first character
+     * @param end     index after the last character
+     * @return the decoded bytes
+     */
+    public static byte[] decodeBase64URL(String encoded, int start, int end) {
+        int length = end - start;
+        if (length % 4 == 1)
+            throw new IllegalArgumentException("Base64URL length " + length + " is invalid");
+        byte[] decoded = new byte[length / 4 * 3 + (length % 4 == 0 ? 0 : length % 4 - 1)];
+        int bits = 0;
+        int bitCount = 0;
+        int out = 0;
+        for (int i = start; i < end; i++) {
+            int value = base64URLValue(encoded.charAt(i));
+            if (value < 0)
+                throw new IllegalArgumentException("Base64URL character at " + i + " is invalid");
+            bits = bits << 6 | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                decoded[out++] = (byte) (bits >> bitCount);
+                bits &= (1 << bitCount) - 1;
+            }
+        }
+        if (bits != 0)
+            throw new IllegalArgumentException("Base64URL trailing bits are not zero");
+        return decoded;
+    }
+
+    public static byte[] decodeBase64URL(String encoded) {
+        return decodeBase64URL(encoded, 0, encoded.length());
+    }
+
+    /**
+     * @return the 6-bit value of a Base64URL character, -1 if outside the alphabet
+     */
+    public static int base64URLValue(char c) {
+        if (c >= 'A' && c <= 'Z')
+            return c - 'A';
+        if (c >= 'a' && c <= 'z')
+            return c - 'a' + 26;
+        if (c >= '0' && c <= '9')
+            return c - '0' + 52;
+        if (c == '-')
+            return 62;
+        if (c == '_')
+            return 63;
+        return -1;
+    }
+
     public static RSAPrivateKey readPrivateKeyFromPEM(InputStream in) throws InvalidKeySpecException, IOException, NoSuchProviderException, NoSuchAlgorithmException, InvalidKeyException {
         PemObject pemObject = new PemReader(new InputStreamReader(in)).readPemObject();
         return readPrivateKeyHelper(pemObject);
@@ -75,7 +173,7 @@ public final class Util {
     }
 
     private static RSAPrivateKey readPrivateKeyHelper(PemObject pemObject) throws InvalidKeySpecException, IOException, NoSuchProviderException, NoSuchAlgorithmException {
-        KeyFactory factory = KeyFactory.getInstance("RSA", "BC");
+        KeyFactory factory = KeyFactory.getInstance("RSA", getRSAProvider());
         byte[] content = pemObject.getContent();
         PKCS8EncodedKeySpec privKeySpec = new PKCS8EncodedKeySpec(content);
         return (RSAPrivateKey) factory.generatePrivate(privKeySpec);
@@ -104,7 +202,7 @@ public final class Util {
         }
         pemParser.close();
 
-        JcaPEMKeyConverter converter = new JcaPEMKeyConverter();
+        JcaPEMKeyConverter converter = new JcaPEMKeyConverter().setProvider(getRSAProvider());
         return (RSAPrivateKey) converter.getPrivateKey(keyInfo);
     }
 }
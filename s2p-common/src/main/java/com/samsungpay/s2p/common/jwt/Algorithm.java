@@ -17,10 +17,19 @@
 
 package com.samsungpay.s2p.common.jwt;
 
+import java.nio.charset.Charset;
 import java.security.SignatureException;
 
 public interface Algorithm {
     public String getType();
 
     public byte[] sign(String plainTxt) throws SignatureException;
+
+    /**
+     * Signs a range of UTF-8 encoded content. Implementations should override it to sign the bytes without
+     * decoding them, the default delegates to {@link #sign(String)}.
+     */
+    public default byte[] sign(byte[] content, int offset, int length) throws SignatureException {
+        return sign(new String(content, offset, length, Charset.forName("UTF-8")));
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common.jwt;
+
+import com.samsungpay.s2p.common.SerializationContext;
+import com.samsungpay.s2p.common.Util;
+import org.apache.commons.codec.binary.StringUtils;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compact JWS split into its segments.
+ * <p>
+ * Only the segment boundaries are located and the characters checked on creation. The header and payload are
+ * decoded on first access, and headers are shared between tokens issued with the same header, which are usually all
+ * the tokens of a key id.
+ * <p>
+ * Segments are decoded strictly, so the characters covered by the signature are exactly the ones decoded; a lenient
+ * decoder skipping characters outside the alphabet would let a token with a valid signature decode to another
+ * payload.
+ */
+public class DecodedJWT {
+    private static final int MAX_CACHED_HEADERS = 256;
+    private static final ConcurrentMap<String, Header> HEADERS = new ConcurrentHashMap<String, Header>();
+
+    private final String token;
+    private final int headerEnd;
+    private final int payloadEnd;
+    private Header header;
+    private Payload payload;
+
+    private DecodedJWT(String token, int headerEnd, int payloadEnd) {
+        this.token = token;
+        this.headerEnd = headerEnd;
+        this.payloadEnd = payloadEnd;
+    }
+
+    /**
+     * @param token compact JWS
+     * @return the token split into its segments, nothing is decoded yet
+     * @throws IllegalArgumentException if the token is not three Base64URL segments
+     */
+    public static DecodedJWT decode(String token) {
+        if (token == null)
+            throw new IllegalArgumentException("JWT is missing");
+        int headerEnd = -1;
+        int payloadEnd = -1;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (headerEnd < 0) {
+                    headerEnd = i;
+                } else if (payloadEnd < 0) {
+                    payloadEnd = i;
+                } else {
+                    throw new IllegalArgumentException("JWT must consist of three segments");
+                }
+            } else if (Util.base64URLValue(c) < 0) {
+                throw new IllegalArgumentException("JWT character at " + i + " is not Base64URL");
+            }
+        }
+        if (payloadEnd < 0)
+            throw new IllegalArgumentException("JWT must consist of three segments");
+        return new DecodedJWT(token, headerEnd, payloadEnd);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public Header getHeader() throws IOException {
+        if (header == null) {
+            String segment = token.substring(0, headerEnd);
+            Header decoded = HEADERS.get(segment);
+            if (decoded == null) {
+                decoded = SerializationContext.jwt().readValue(decodeSegment(0, headerEnd), Header.class);
+                // headers come from untrusted tokens, so the cache is bounded
+                if (HEADERS.size() < MAX_CACHED_HEADERS)
+                    HEADERS.putIfAbsent(segment, decoded);
+            }
+            header = decoded;
+        }
+        return header;
+    }
+
+    public Payload getPayload() throws IOException {
+        if (payload == null)
+            payload = SerializationContext.jwt().readValue(decodeSegment(headerEnd + 1, payloadEnd), Payload.class);
+        return payload;
+    }
+
+    /**
+     * @return the ASCII bytes of the header and payload segments delimited by a period, all characters were checked
+     * to be Base64URL on creation
+     */
+    public byte[] getSigningInput() {
+        byte[] input = new byte[payloadEnd];
+        for (int i = 0; i < payloadEnd; i++)
+            input[i] = (byte) token.charAt(i);
+        return input;
+    }
+
+    public byte[] getSignature() {
+        return Util.decodeBase64URL(token, payloadEnd + 1, token.length());
+    }
+
+    private String decodeSegment(int start, int end) {
+        return StringUtils.newStringUtf8(Util.decodeBase64URL(token, start, end));
+    }
+}
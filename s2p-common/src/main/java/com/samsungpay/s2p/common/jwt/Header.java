@@ -91,8 +91,10 @@ public class Header {
             return this;
         }
 
-        // Currently only support RS256Algorithm
-        private Builder algorithm(String alg) {
+        /**
+         * @param alg the JWS algorithm name, e.g. {@link Algorithm#getType()} of the signing algorithm
+         */
+        public Builder algorithm(String alg) {
             this.alg = alg;
             return this;
         }
@@ -107,6 +109,15 @@ public class Header {
         }
     }
 
+    // used when decoding
+    private Header() {
+        this.kid = null;
+        this.typ = null;
+        this.cty = null;
+        this.alg = null;
+        this.privateClaims = null;
+    }
+
     private Header(Builder builder) {
         this.kid = builder.kid;
         this.typ = builder.typ;
@@ -114,4 +125,24 @@ public class Header {
         this.alg = builder.alg;
         this.privateClaims = builder.privateClaims;
     }
+
+    public String getKeyId() {
+        return kid;
+    }
+
+    public String getType() {
+        return typ;
+    }
+
+    public String getContentType() {
+        return cty;
+    }
+
+    public String getAlgorithm() {
+        return alg;
+    }
+
+    public Map<String, Object> getPrivateClaims() {
+        return privateClaims;
+    }
 }
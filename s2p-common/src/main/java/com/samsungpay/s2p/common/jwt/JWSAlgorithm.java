@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common.jwt;
+
+import com.samsungpay.s2p.common.jwt.algorithm.ES256Algorithm;
+import com.samsungpay.s2p.common.jwt.algorithm.EdDSAAlgorithm;
+import com.samsungpay.s2p.common.jwt.algorithm.RS256Algorithm;
+
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.SignatureException;
+import java.security.interfaces.RSAKey;
+
+/**
+ * Supported JWS signature algorithms, named after their {@code alg} header value.
+ */
+public enum JWSAlgorithm {
+    /**
+     * RSASSA-PKCS1-v1_5 using SHA-256.
+     */
+    RS256("SHA256withRSA"),
+
+    /**
+     * ECDSA using P-256 and SHA-256.
+     */
+    ES256("SHA256withECDSA"),
+
+    /**
+     * Ed25519, available on platforms providing it (Java 15 and later).
+     */
+    EdDSA("Ed25519");
+
+    private final String jcaName;
+
+    JWSAlgorithm(String jcaName) {
+        this.jcaName = jcaName;
+    }
+
+    public String getJcaName() {
+        return jcaName;
+    }
+
+    /**
+     * @param alg the {@code alg} header value
+     * @return the matching algorithm, or null if not supported
+     */
+    public static JWSAlgorithm forName(String alg) {
+        for (JWSAlgorithm jwsAlgorithm : values()) {
+            if (jwsAlgorithm.name().equals(alg))
+                return jwsAlgorithm;
+        }
+        return null;
+    }
+
+    /**
+     * @param key the private or public key
+     * @return the algorithm matching the type of the key
+     */
+    public static JWSAlgorithm forKey(Key key) {
+        String keyAlgorithm = key.getAlgorithm();
+        if ("RSA".equals(keyAlgorithm))
+            return RS256;
+        if ("EC".equals(keyAlgorithm) || "ECDSA".equals(keyAlgorithm))
+            return ES256;
+        if ("EdDSA".equals(keyAlgorithm) || "Ed25519".equals(keyAlgorithm)) {
+            if (!EdDSAAlgorithm.isEd25519(key))
+                throw new IllegalArgumentException("Unsupported EdDSA curve, only Ed25519 keys are supported");
+            return EdDSA;
+        }
+        throw new IllegalArgumentException("Unsupported private key algorithm " + keyAlgorithm);
+    }
+
+    public Algorithm newAlgorithm(PrivateKey key) throws NoSuchAlgorithmException, InvalidKeyException {
+        switch (this) {
+            case ES256:
+                return new ES256Algorithm(key);
+            case EdDSA:
+                return new EdDSAAlgorithm(key);
+            default:
+                if (!(key instanceof RSAKey))
+                    throw new IllegalArgumentException("The given key is not a RSAPrivateKey.");
+                return new RS256Algorithm((RSAKey) key);
+        }
+    }
+
+    /**
+     * Converts a signature produced by the JCA {@link java.security.Signature} into its JWS form.
+     *
+     * @param signature JCA signature
+     * @return JWS signature
+     */
+    public byte[] toJWSSignature(byte[] signature) throws SignatureException {
+        return this == ES256 ? ES256Algorithm.toConcatenated(signature) : signature;
+    }
+
+    /**
+     * Converts a JWS signature into the form verified by the JCA {@link java.security.Signature}.
+     *
+     * @param signature JWS signature
+     * @return JCA signature
+     */
+    public byte[] fromJWSSignature(byte[] signature) throws SignatureException {
+        return this == ES256 ? ES256Algorithm.toDER(signature) : signature;
+    }
+}
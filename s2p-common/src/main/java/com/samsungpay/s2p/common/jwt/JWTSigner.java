@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common.jwt;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.samsungpay.s2p.common.Base64URLOutputStream;
+import com.samsungpay.s2p.common.SerializationContext;
+import com.samsungpay.s2p.common.Utf8Writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.SignatureException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Produces compact JWS strings for a fixed header.
+ * <p>
+ * The Base64URL header segment is encoded once, the payload segment is built directly into a per-thread
+ * reusable byte buffer and the algorithm signs those bytes, so no intermediate JSON or encoded strings are
+ * created. Instances are immutable and thread-safe.
+ */
+public class JWTSigner {
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+    private static final byte DELIMITER = '.';
+    private static final int MAX_KEY_ID_SIGNERS = 256;
+    private static final ConcurrentMap<String, JWTSigner> KEY_ID_SIGNERS = new ConcurrentHashMap<String, JWTSigner>();
+    private static final ThreadLocal<SigningBuffer> BUFFERS = new ThreadLocal<SigningBuffer>() {
+        @Override
+        protected SigningBuffer initialValue() {
+            return new SigningBuffer();
+        }
+    };
+
+    private final byte[] encodedHeader;
+
+    public JWTSigner(Header header) throws JsonProcessingException {
+        SigningBuffer buffer = new SigningBuffer();
+        writeSegment(header, buffer);
+        this.encodedHeader = buffer.toByteArray();
+    }
+
+    /**
+     * Signer of the default RS256 header carrying only the given key id, cached per key id.
+     *
+     * @param keyId the key id
+     * @return the shared signer
+     */
+    public static JWTSigner forKeyId(String keyId) throws JsonProcessingException {
+        return forKeyId(keyId, JWSAlgorithm.RS256.name());
+    }
+
+    /**
+     * Signer of the default header carrying only the given key id and algorithm, cached per key id and algorithm.
+     * At most 256 signers are cached, the cache starts over once full so key ids supplied by callers cannot grow it
+     * without limit.
+     *
+     * @param keyId the key id
+     * @param alg   the JWS algorithm name
+     * @return the shared signer
+     */
+    public static JWTSigner forKeyId(String keyId, String alg) throws JsonProcessingException {
+        // algorithm names never contain a colon
+        String cacheKey = alg + ':' + keyId;
+        JWTSigner signer = KEY_ID_SIGNERS.get(cacheKey);
+        if (signer == null) {
+            signer = new JWTSigner(Header.newBuilder()
+                    .keyId(keyId)
+                    .algorithm(alg)
+                    .build());
+            if (KEY_ID_SIGNERS.size() >= MAX_KEY_ID_SIGNERS)
+                KEY_ID_SIGNERS.clear();
+            JWTSigner existing = KEY_ID_SIGNERS.putIfAbsent(cacheKey, signer);
+            if (existing != null)
+                signer = existing;
+        }
+        return signer;
+    }
+
+    /**
+     * @param payload the payload
+     * @return the ASCII bytes of the Base64URL header and payload segments delimited by a period
+     */
+    public byte[] signingInput(Payload payload) throws JsonProcessingException {
+        SigningBuffer buffer = BUFFERS.get();
+        writeSigningInput(payload, buffer);
+        return buffer.toByteArray();
+    }
+
+    public String sign(Payload payload, Algorithm algorithm) throws JsonProcessingException, SignatureException {
+        SigningBuffer buffer = BUFFERS.get();
+        writeSigningInput(payload, buffer);
+        byte[] signature = algorithm.sign(buffer.array(), 0, buffer.size());
+        buffer.write(DELIMITER);
+        writeBase64(signature, buffer);
+        return new String(buffer.array(), 0, buffer.size(), ASCII);
+    }
+
+    private void writeSigningInput(Payload payload, SigningBuffer buffer) throws JsonProcessingException {
+        buffer.reset();
+        buffer.write(encodedHeader, 0, encodedHeader.length);
+        buffer.write(DELIMITER);
+        writeSegment(payload, buffer);
+    }
+
+    private static void writeSegment(Object value, OutputStream out) throws JsonProcessingException {
+        try {
+            Base64URLOutputStream base64 = new Base64URLOutputStream(out);
+            Utf8Writer writer = new Utf8Writer(base64);
+            SerializationContext.jwt().writeValue(writer, value);
+            writer.finish();
+            base64.finish();
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            // not thrown by the in-memory buffer
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeBase64(byte[] data, OutputStream out) {
+        try {
+            Base64URLOutputStream base64 = new Base64URLOutputStream(out);
+            base64.write(data, 0, data.length);
+            base64.finish();
+        } catch (IOException e) {
+            // not thrown by the in-memory buffer
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class SigningBuffer extends ByteArrayOutputStream {
+        private static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+        private SigningBuffer() {
+            super(1024);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+
+        @Override
+        public synchronized void reset() {
+            super.reset();
+            // do not pin an unusually large payload to the thread
+            if (buf.length > MAX_RETAINED_SIZE)
+                buf = new byte[1024];
+        }
+    }
+}
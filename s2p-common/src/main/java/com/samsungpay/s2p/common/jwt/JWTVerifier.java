@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common.jwt;
+
+import com.samsungpay.s2p.common.Util;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe verification of compact JWS against registered public keys.
+ * <p>
+ * Public keys are registered per key id with the algorithm they verify, so a token cannot pick another
+ * algorithm through its header. Like the signer service, initialized {@link Signature} instances are pooled per
+ * key id.
+ */
+public class JWTVerifier {
+    private final int maxIdlePerKey;
+    private final ConcurrentMap<String, VerificationPool> pools = new ConcurrentHashMap<String, VerificationPool>();
+
+    /**
+     * @param maxIdlePerKey maximum number of idle {@link Signature} instances kept per key id
+     */
+    public JWTVerifier(int maxIdlePerKey) {
+        if (maxIdlePerKey < 1)
+            throw new IllegalArgumentException("JWTVerifier maxIdlePerKey must be positive");
+        this.maxIdlePerKey = maxIdlePerKey;
+    }
+
+    /**
+     * Registers a public key, replacing the previous key of the key id.
+     *
+     * @param keyId     the key id
+     * @param publicKey RSA, P-256 EC or Ed25519 public key, verifying RS256, ES256 or EdDSA respectively
+     */
+    public JWTVerifier addKey(String keyId, PublicKey publicKey) throws NoSuchAlgorithmException, InvalidKeyException {
+        if (keyId == null || publicKey == null)
+            throw new IllegalArgumentException("JWTVerifier keyId and publicKey are required");
+        pools.put(keyId, new VerificationPool(JWSAlgorithm.forKey(publicKey), publicKey, maxIdlePerKey));
+        return this;
+    }
+
+    public void removeKey(String keyId) {
+        pools.remove(keyId);
+    }
+
+    /**
+     * @param token compact JWS
+     * @return the verified token
+     * @throws SignatureException if the key id is unknown, the algorithm does not match or the signature is invalid
+     */
+    public DecodedJWT verify(String token) throws SignatureException, IOException {
+        DecodedJWT jwt = DecodedJWT.decode(token);
+        verify(jwt);
+        return jwt;
+    }
+
+    public void verify(DecodedJWT jwt) throws SignatureException, IOException {
+        Header header = jwt.getHeader();
+        VerificationPool pool = header.getKeyId() == null ? null : pools.get(header.getKeyId());
+        if (pool == null)
+            throw new SignatureException("JWT key id " + header.getKeyId() + " is unknown");
+        if (!pool.jwsAlgorithm.name().equals(header.getAlgorithm()))
+            throw new SignatureException("JWT algorithm " + header.getAlgorithm() + " does not match the key of " + header.getKeyId());
+        if (!pool.verify(jwt.getSigningInput(), jwt.getSignature()))
+            throw new SignatureException("JWT signature is invalid");
+    }
+
+    private static final class VerificationPool {
+        private final JWSAlgorithm jwsAlgorithm;
+        private final Provider provider;
+        private final PublicKey key;
+        private final int maxIdle;
+        private final Queue<Signature> idle = new ConcurrentLinkedQueue<Signature>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        private VerificationPool(JWSAlgorithm jwsAlgorithm, PublicKey key, int maxIdle) throws NoSuchAlgorithmException, InvalidKeyException {
+            this.jwsAlgorithm = jwsAlgorithm;
+            this.provider = jwsAlgorithm == JWSAlgorithm.RS256 ? Util.getRSAProvider() : null;
+            this.key = key;
+            this.maxIdle = maxIdle;
+            // fail fast on an unusable key
+            release(newSignature());
+        }
+
+        private boolean verify(byte[] content, byte[] jwsSignature) throws SignatureException {
+            byte[] signature = jwsAlgorithm.fromJWSSignature(jwsSignature);
+            Signature verifier = acquire();
+            // an instance that failed may be left mid-operation, so it is not returned to the pool
+            verifier.update(content);
+            boolean valid = verifier.verify(signature);
+            release(verifier);
+            return valid;
+        }
+
+        private Signature acquire() throws SignatureException {
+            Signature signature = idle.poll();
+            if (signature != null) {
+                idleCount.decrementAndGet();
+                return signature;
+            }
+            try {
+                return newSignature();
+            } catch (GeneralSecurityException e) {
+                throw new SignatureException("Unable to initialize " + jwsAlgorithm.getJcaName(), e);
+            }
+        }
+
+        private void release(Signature signature) {
+            if (idleCount.incrementAndGet() <= maxIdle)
+                idle.offer(signature);
+            else
+                idleCount.decrementAndGet();
+        }
+
+        private Signature newSignature() throws NoSuchAlgorithmException, InvalidKeyException {
+            Signature signature = provider == null
+                    ? Signature.getInstance(jwsAlgorithm.getJcaName())
+                    : Signature.getInstance(jwsAlgorithm.getJcaName(), provider);
+            signature.initVerify(key);
+            return signature;
+        }
+    }
+}
@@ -155,6 +155,18 @@ public class Payload {
         }
     }
 
+    // used when decoding
+    private Payload() {
+        this.iss = null;
+        this.sub = null;
+        this.aud = null;
+        this.exp = null;
+        this.nbf = null;
+        this.iat = null;
+        this.jti = null;
+        this.claims = null;
+    }
+
     private Payload(Builder builder) {
         this.iss = builder.iss;
         this.sub = builder.sub;
@@ -165,4 +177,36 @@ public class Payload {
         this.jti = builder.jti;
         this.claims = builder.claims;
     }
+
+    public String getIssuer() {
+        return iss;
+    }
+
+    public String getSubject() {
+        return sub;
+    }
+
+    public String getAudience() {
+        return aud;
+    }
+
+    public Date getExpirationTime() {
+        return exp;
+    }
+
+    public Date getNotBefore() {
+        return nbf;
+    }
+
+    public Date getIssuedAt() {
+        return iat;
+    }
+
+    public String getJwtId() {
+        return jti;
+    }
+
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
 }
@@ -18,24 +18,23 @@
 package com.samsungpay.s2p.common.jwt;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.codec.binary.Base64;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 import java.security.SignatureException;
 
-import static org.apache.commons.codec.CharEncoding.UTF_8;
-
 public class SignatureJWT implements JWT {
+    private static final Charset ASCII = Charset.forName("US-ASCII");
     private static final String DELIMITER = ".";
     private final Header header;
     private final Payload payload;
-    private final String encodedSource;
+    private final byte[] encodedSource;
 
     public SignatureJWT(Header header, Payload payload) throws JsonProcessingException, UnsupportedEncodingException {
         this.header = header;
         this.payload = payload;
-        this.encodedSource = generateEncodedSource(this);
+        this.encodedSource = new JWTSigner(header).signingInput(payload);
     }
 
     @Override
@@ -50,23 +49,7 @@ public class SignatureJWT implements JWT {
 
     @Override
     public String sign(Algorithm algorithm) throws SignatureException {
-        byte[] signature = algorithm.sign(encodedSource);
-        return encodedSource + DELIMITER + Base64.encodeBase64URLSafeString(signature);
-    }
-
-    /**
-     * Base64URI-encoded parts delimited by period ('.') characters
-     *
-     * @return
-     */
-    private static String generateEncodedSource(SignatureJWT signatureJWT) throws JsonProcessingException, UnsupportedEncodingException {
-        String jsonHeader = asJson(signatureJWT.getHeader());
-        String jsonPayload = asJson(signatureJWT.getPayload());
-
-        return Base64.encodeBase64URLSafeString(jsonHeader.getBytes(UTF_8)) + DELIMITER + Base64.encodeBase64URLSafeString(jsonPayload.getBytes(UTF_8));
-    }
-
-    private static String asJson(Object object) throws JsonProcessingException {
-        return new ObjectMapper().writeValueAsString(object);
+        byte[] signature = algorithm.sign(encodedSource, 0, encodedSource.length);
+        return new String(encodedSource, ASCII) + DELIMITER + Base64.encodeBase64URLSafeString(signature);
     }
 }
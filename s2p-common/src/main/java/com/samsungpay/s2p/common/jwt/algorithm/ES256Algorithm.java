@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common.jwt.algorithm;
+
+import com.samsungpay.s2p.common.jwt.Algorithm;
+
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.security.*;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.EllipticCurve;
+
+public class ES256Algorithm implements Algorithm {
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final String SIG_INSTANCE = "SHA256withECDSA";
+    private static final String TYP = "ES256";
+    private static final int FIELD_SIZE = 256;
+    private static final int COORDINATE_LENGTH = FIELD_SIZE / 8;
+    // secp256r1 domain parameters, FIPS 186-4 D.1.2.3
+    private static final BigInteger P256_PRIME = new BigInteger("ffffffff00000001000000000000000000000000ffffffffffffffffffffffff", 16);
+    private static final BigInteger P256_A = P256_PRIME.subtract(BigInteger.valueOf(3));
+    private static final BigInteger P256_B = new BigInteger("5ac635d8aa3a93e7b3ebbd55769886bc651d06b0cc53b0f63bce3c3e27d2604b", 16);
+    private static final BigInteger P256_GX = new BigInteger("6b17d1f2e12c4247f8bce6e563a440f277037d812deb33a0f4a13945d898c296", 16);
+    private static final BigInteger P256_GY = new BigInteger("4fe342e2fe1a7f9b8ee7eb4a7c0f9e162bce33576b315ececbb6406837bf51f5", 16);
+    private static final BigInteger P256_ORDER = new BigInteger("ffffffff00000000ffffffffffffffffbce6faada7179e84f3b9cac2fc632551", 16);
+    private final Signature privateSignature;
+
+    public ES256Algorithm(PrivateKey key) throws NoSuchAlgorithmException, InvalidKeyException {
+        if (!(key instanceof ECPrivateKey)) {
+            throw new IllegalArgumentException("The given key is not a ECPrivateKey.");
+        }
+        if (!isP256(((ECPrivateKey) key).getParams())) {
+            throw new IllegalArgumentException("The given key is not a P-256 key.");
+        }
+        privateSignature = Signature.getInstance(SIG_INSTANCE);
+        privateSignature.initSign(key);
+    }
+
+    /**
+     * @return true if the parameters are those of secp256r1, other 256-bit curves such as secp256k1 are not ES256
+     */
+    public static boolean isP256(ECParameterSpec params) {
+        if (params == null || params.getCofactor() != 1 || !P256_ORDER.equals(params.getOrder()))
+            return false;
+        EllipticCurve curve = params.getCurve();
+        if (!(curve.getField() instanceof ECFieldFp) || !P256_PRIME.equals(((ECFieldFp) curve.getField()).getP()))
+            return false;
+        ECPoint generator = params.getGenerator();
+        return P256_A.equals(curve.getA()) && P256_B.equals(curve.getB())
+                && P256_GX.equals(generator.getAffineX()) && P256_GY.equals(generator.getAffineY());
+    }
+
+    @Override
+    public String getType() {
+        return TYP;
+    }
+
+    @Override
+    public byte[] sign(String plainTxt) throws SignatureException {
+        byte[] content = plainTxt.getBytes(CHARSET);
+        return sign(content, 0, content.length);
+    }
+
+    @Override
+    public byte[] sign(byte[] content, int offset, int length) throws SignatureException {
+        privateSignature.update(content, offset, length);
+        return toConcatenated(privateSignature.sign());
+    }
+
+    /**
+     * Converts a DER encoded ECDSA signature into the fixed length R || S form used by JWS.
+     *
+     * @param der DER encoded SEQUENCE of the two INTEGERs R and S
+     * @return 64 bytes, R and S left padded to 32 bytes each
+     */
+    public static byte[] toConcatenated(byte[] der) throws SignatureException {
+        if (der.length < 8 || der[0] != 0x30)
+            throw new SignatureException("Invalid DER encoded ECDSA signature");
+        int offset = (der[1] & 0xff) == 0x81 ? 3 : 2;
+
+        byte[] concatenated = new byte[2 * COORDINATE_LENGTH];
+        offset = copyInteger(der, offset, concatenated, 0);
+        copyInteger(der, offset, concatenated, COORDINATE_LENGTH);
+        return concatenated;
+    }
+
+    /**
+     * Converts a JWS R || S signature back into the DER encoding expected by {@link Signature#verify(byte[])}.
+     *
+     * @param concatenated 64 bytes, R and S left padded to 32 bytes each
+     * @return DER encoded SEQUENCE of the two INTEGERs R and S
+     */
+    public static byte[] toDER(byte[] concatenated) throws SignatureException {
+        if (concatenated.length != 2 * COORDINATE_LENGTH)
+            throw new SignatureException("Invalid ES256 signature length " + concatenated.length);
+        int rLength = integerLength(concatenated, 0);
+        int sLength = integerLength(concatenated, COORDINATE_LENGTH);
+        // at most 2 * (2 + 33) bytes, so the sequence length always fits in one byte
+        int sequenceLength = 4 + rLength + sLength;
+
+        byte[] der = new byte[2 + sequenceLength];
+        der[0] = 0x30;
+        der[1] = (byte) sequenceLength;
+        int offset = writeInteger(concatenated, 0, rLength, der, 2);
+        writeInteger(concatenated, COORDINATE_LENGTH, sLength, der, offset);
+        return der;
+    }
+
+    private static int integerLength(byte[] concatenated, int offset) {
+        int start = offset;
+        int end = offset + COORDINATE_LENGTH;
+        while (start < end - 1 && concatenated[start] == 0)
+            start++;
+        // a leading zero keeps the INTEGER positive
+        return end - start + (concatenated[start] < 0 ? 1 : 0);
+    }
+
+    private static int writeInteger(byte[] concatenated, int offset, int length, byte[] der, int derOffset) {
+        der[derOffset] = 0x02;
+        der[derOffset + 1] = (byte) length;
+        int copied = Math.min(length, COORDINATE_LENGTH);
+        System.arraycopy(concatenated, offset + COORDINATE_LENGTH - copied, der, derOffset + 2 + length - copied, copied);
+        return derOffset + 2 + length;
+    }
+
+    private static int copyInteger(byte[] der, int offset, byte[] target, int targetOffset) throws SignatureException {
+        if (offset + 2 > der.length || der[offset] != 0x02)
+            throw new SignatureException("Invalid DER encoded ECDSA signature");
+        int length = der[offset + 1] & 0xff;
+        int start = offset + 2;
+        int end = start + length;
+        if (end > der.length)
+            throw new SignatureException("Invalid DER encoded ECDSA signature");
+        while (start < end && der[start] == 0)
+            start++;
+        if (end - start > COORDINATE_LENGTH)
+            throw new SignatureException("Invalid DER encoded ECDSA signature");
+        System.arraycopy(der, start, target, targetOffset + COORDINATE_LENGTH - (end - start), end - start);
+        return end;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common.jwt.algorithm;
+
+import com.samsungpay.s2p.common.jwt.Algorithm;
+
+import java.nio.charset.Charset;
+import java.security.*;
+
+/**
+ * Ed25519 signing. Requires a security provider offering {@code Ed25519}, such as the JDK from Java 15 on.
+ */
+public class EdDSAAlgorithm implements Algorithm {
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final String SIG_INSTANCE = "Ed25519";
+    private static final String TYP = "EdDSA";
+    // DER AlgorithmIdentifier of id-Ed25519 (1.3.101.112), Ed448 is 1.3.101.113
+    private static final byte[] ED25519_ALGORITHM_ID = {0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70};
+    private static final int ALGORITHM_ID_SEARCH_LENGTH = 16;
+    private final Signature privateSignature;
+
+    public EdDSAAlgorithm(PrivateKey key) throws NoSuchAlgorithmException, InvalidKeyException {
+        if (!isEd25519(key)) {
+            throw new IllegalArgumentException("The given key is not a Ed25519 private key.");
+        }
+        privateSignature = Signature.getInstance(SIG_INSTANCE);
+        privateSignature.initSign(key);
+    }
+
+    /**
+     * A key reporting the generic {@code EdDSA} algorithm may be an Ed448 key, so its PKCS#8 or X.509 encoding must
+     * name the Ed25519 curve.
+     *
+     * @return true if the key is an Ed25519 key
+     */
+    public static boolean isEd25519(Key key) {
+        if (key == null)
+            return false;
+        if ("Ed25519".equals(key.getAlgorithm()))
+            return true;
+        if (!"EdDSA".equals(key.getAlgorithm()))
+            return false;
+        byte[] encoded = key.getEncoded();
+        if (encoded == null)
+            return false;
+        // the AlgorithmIdentifier follows the outer SEQUENCE header and, for PKCS#8, the version
+        int last = Math.min(encoded.length, ALGORITHM_ID_SEARCH_LENGTH) - ED25519_ALGORITHM_ID.length;
+        for (int offset = 0; offset <= last; offset++) {
+            int i = 0;
+            while (i < ED25519_ALGORITHM_ID.length && encoded[offset + i] == ED25519_ALGORITHM_ID[i])
+                i++;
+            if (i == ED25519_ALGORITHM_ID.length)
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String getType() {
+        return TYP;
+    }
+
+    @Override
+    public byte[] sign(String plainTxt) throws SignatureException {
+        byte[] content = plainTxt.getBytes(CHARSET);
+        return sign(content, 0, content.length);
+    }
+
+    @Override
+    public byte[] sign(byte[] content, int offset, int length) throws SignatureException {
+        privateSignature.update(content, offset, length);
+        return privateSignature.sign();
+    }
+}
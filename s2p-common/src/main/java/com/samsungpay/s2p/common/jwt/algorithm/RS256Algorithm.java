@@ -17,6 +17,7 @@
 
 package com.samsungpay.s2p.common.jwt.algorithm;
 
+import com.samsungpay.s2p.common.Util;
 import com.samsungpay.s2p.common.jwt.Algorithm;
 
 import java.nio.charset.Charset;
@@ -33,7 +34,7 @@ public class RS256Algorithm implements Algorithm {
         if (!(key instanceof PrivateKey)) {
             throw new IllegalArgumentException("The given key is not a RSAPrivateKey.");
         }
-        privateSignature = Signature.getInstance(SIG_INSTANCE);
+        privateSignature = Signature.getInstance(SIG_INSTANCE, Util.getRSAProvider());
         privateSignature.initSign((PrivateKey) key);
     }
 
@@ -44,7 +45,13 @@ public class RS256Algorithm implements Algorithm {
 
     @Override
     public byte[] sign(String plainTxt) throws SignatureException {
-        privateSignature.update(plainTxt.getBytes(CHARSET));
+        byte[] content = plainTxt.getBytes(CHARSET);
+        return sign(content, 0, content.length);
+    }
+
+    @Override
+    public byte[] sign(byte[] content, int offset, int length) throws SignatureException {
+        privateSignature.update(content, offset, length);
         return privateSignature.sign();
     }
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common.model;
+
+import java.util.List;
+
+/**
+ * 128-bit structural hash of model content.
+ * <p>
+ * Computed over the model properties directly, without serializing them. Equal models have equal fingerprints,
+ * and the value depends only on the content and the model class names, so it is stable across JVMs and may be
+ * persisted, e.g. to detect changed registrations between two imports. It is not a cryptographic hash.
+ */
+public final class Fingerprint {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long high;
+    private final long low;
+
+    private Fingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @param value the model, may be null
+     * @return fingerprint of the class name and content of the model
+     */
+    public static Fingerprint of(Fingerprintable value) {
+        Hasher hasher = newHasher();
+        if (value != null)
+            hasher.putString(value.getClass().getName());
+        return hasher.put(value).fingerprint();
+    }
+
+    public static Hasher newHasher() {
+        return new Hasher();
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * @return the low 64 bits, usable on their own as a 64-bit fingerprint
+     */
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        Fingerprint other = (Fingerprint) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) low;
+    }
+
+    /**
+     * @return 32 lowercase hexadecimal digits, high bits first
+     */
+    @Override
+    public String toString() {
+        char[] hex = new char[32];
+        for (int i = 0; i < 16; i++) {
+            hex[i] = HEX[(int) (high >>> (60 - 4 * i)) & 0xf];
+            hex[16 + i] = HEX[(int) (low >>> (60 - 4 * i)) & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Accumulates values into a fingerprint. Every value is tagged with its kind, and strings and lists with their
+     * length, so that different sequences of values do not collide by concatenation. Nulls of any kind share one
+     * tag.
+     */
+    public static final class Hasher {
+        private static final long P1 = 0x9E3779B185EBCA87L;
+        private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+        private static final long P3 = 0x165667B19E3779F9L;
+        private static final long NULL = 0x6E756C6CL;
+        private static final long STRING = 0x73747269L << 32;
+        private static final long LONG = 0x6C6F6E67L;
+        private static final long LIST = 0x6C697374L << 32;
+        private static final long OBJECT = 0x6F626A65L;
+
+        private long h1 = P3;
+        private long h2 = P1 ^ P2;
+        private long words;
+
+        private Hasher() {
+        }
+
+        public Hasher putString(String value) {
+            if (value == null) {
+                mix(NULL);
+                return this;
+            }
+            int length = value.length();
+            mix(STRING | length);
+            int i = 0;
+            for (; i + 4 <= length; i += 4) {
+                mix(((long) value.charAt(i) << 48) | ((long) value.charAt(i + 1) << 32)
+                        | ((long) value.charAt(i + 2) << 16) | value.charAt(i + 3));
+            }
+            if (i < length) {
+                long word = 0;
+                for (; i < length; i++)
+                    word = (word << 16) | value.charAt(i);
+                mix(word);
+            }
+            return this;
+        }
+
+        /**
+         * Enums contribute their name, so that reordering the constants keeps the fingerprints.
+         */
+        public Hasher putEnum(Enum<?> value) {
+            return putString(value == null ? null : value.name());
+        }
+
+        public Hasher putLong(long value) {
+            mix(LONG);
+            mix(value);
+            return this;
+        }
+
+        public Hasher putBoolean(boolean value) {
+            return putLong(value ? 1 : 0);
+        }
+
+        public Hasher put(Fingerprintable value) {
+            if (value == null) {
+                mix(NULL);
+            } else {
+                mix(OBJECT);
+                value.fingerprint(this);
+            }
+            return this;
+        }
+
+        public Hasher putList(List<? extends Fingerprintable> values) {
+            if (values == null) {
+                mix(NULL);
+                return this;
+            }
+            mix(LIST | values.size());
+            for (Fingerprintable value : values)
+                put(value);
+            return this;
+        }
+
+        public Fingerprint fingerprint() {
+            long a = finalizeLane(h1 ^ words);
+            long b = finalizeLane(h2 + words * P1);
+            return new Fingerprint(a + b, a ^ Long.rotateLeft(b, 29));
+        }
+
+        private void mix(long word) {
+            words++;
+            h1 = Long.rotateLeft(h1 + word * P2, 31) * P1;
+            h2 = Long.rotateLeft(h2 ^ (word * P1), 27) * P2 + P3;
+        }
+
+        private static long finalizeLane(long h) {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -17,7 +17,7 @@
 
 package com.samsungpay.s2p.common.model;
 
-public abstract class I18n<V> {
+public abstract class I18n<V> implements Fingerprintable, Validatable {
     private String language;
 
     protected I18n(String language) throws IllegalArgumentException {
@@ -27,4 +27,41 @@ public abstract class I18n<V> {
     }
 
     public String getLanguage() { return language; }
+
+    /**
+     * Subclasses check their own properties before the language, in the order their builders throw.
+     */
+    @Override
+    public void validate(ValidationResult result) {
+        validateLanguage(result, language);
+    }
+
+    /**
+     * @return true if the language is set
+     */
+    protected static boolean validateLanguage(ValidationResult result, String language) {
+        return result.requireNonEmpty(language, "language", "I18n language is missing");
+    }
+
+    /**
+     * Subclasses add their own properties after the language.
+     */
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        hasher.putString(language);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        return language.equals(((I18n<?>) o).language);
+    }
+
+    @Override
+    public int hashCode() {
+        return language.hashCode();
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common.model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Weak flyweight cache of immutable model values.
+ * <p>
+ * Equal values, and lists of equal values, are replaced by one shared instance so that large batches of
+ * registrations repeating the same values hold a single copy. Instances are only weakly referenced and are
+ * dropped once no registration uses them. The values must implement {@code equals} and {@code hashCode}.
+ *
+ * @param <T> the model type
+ */
+public final class Interner<T> {
+    private final Map<T, WeakReference<T>> values = new WeakHashMap<T, WeakReference<T>>();
+    private final Map<List<T>, WeakReference<List<T>>> lists = new WeakHashMap<List<T>, WeakReference<List<T>>>();
+
+    /**
+     * @param value the value, may be null
+     * @return the shared instance equal to the value, the value itself if it is the first of its kind
+     */
+    public T intern(T value) {
+        if (value == null)
+            return null;
+        synchronized (values) {
+            return intern(values, value);
+        }
+    }
+
+    /**
+     * @param list the values, may be null and contain nulls
+     * @return the shared unmodifiable list of the interned values equal to the list
+     */
+    public List<T> internList(List<? extends T> list) {
+        if (list == null)
+            return null;
+        List<T> interned = new ArrayList<T>(list.size());
+        for (T value : list)
+            interned.add(intern(value));
+        synchronized (lists) {
+            return intern(lists, Collections.unmodifiableList(interned));
+        }
+    }
+
+    private static <V> V intern(Map<V, WeakReference<V>> instances, V value) {
+        WeakReference<V> reference = instances.get(value);
+        V shared = reference == null ? null : reference.get();
+        if (shared == null) {
+            // the reference does not keep its own key alive
+            instances.put(value, new WeakReference<V>(value));
+            shared = value;
+        }
+        return shared;
+    }
+}
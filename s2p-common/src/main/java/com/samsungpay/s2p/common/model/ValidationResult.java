@@ -0,0 +1,300 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Violations collected by validating models and their builders, each with an error code, the path of the property
+ * and the message {@code build()} throws for it.
+ * <p>
+ * A result is meant to be cleared and reused across validations, e.g. one per thread of an import. Validating a
+ * valid model allocates nothing; paths are only built for violations. Paths are dotted from the validated model,
+ * with list indices in brackets, e.g. {@code cardArt.i18ns[1].artUrl}. Lists are walked by index, so that no
+ * iterator is allocated; model lists are small array lists. Not thread-safe, except for {@link #failFast()}.
+ */
+public final class ValidationResult {
+    public enum Code {
+        /**
+         * A required property is null, or empty for strings.
+         */
+        MISSING,
+        /**
+         * A list property contains null.
+         */
+        NULL_ELEMENT,
+        /**
+         * None of alternative properties, at least one of which is required, is set. The path is that of the model.
+         */
+        MISSING_ONE_OF
+    }
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final ValidationResult FAIL_FAST = new ValidationResult(true);
+
+    private final boolean failFast;
+
+    // allocated on the first violation and the first nested model
+    private Code[] codes;
+    private String[] paths;
+    private String[] messages;
+    private int size;
+
+    private String[] segments;
+    private int[] indices;
+    private int depth;
+
+    public ValidationResult() {
+        this(false);
+    }
+
+    private ValidationResult(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    /**
+     * The result {@code build()} validates its own properties with: the first violation throws its message, and
+     * contained models are not walked, they were checked when they were built. It never holds a violation or a
+     * path, so it is shared between threads and validating through it allocates nothing.
+     */
+    public static ValidationResult failFast() {
+        return FAIL_FAST;
+    }
+
+    /**
+     * Removes the violations, keeping the storage for the next validation.
+     */
+    public ValidationResult clear() {
+        if (failFast)
+            return this;
+        if (size > 0) {
+            Arrays.fill(paths, 0, size, null);
+            Arrays.fill(messages, 0, size, null);
+            size = 0;
+        }
+        depth = 0;
+        return this;
+    }
+
+    public boolean isValid() {
+        return size == 0;
+    }
+
+    /**
+     * @return number of violations
+     */
+    public int size() {
+        return size;
+    }
+
+    public Code getCode(int index) {
+        checkIndex(index);
+        return codes[index];
+    }
+
+    public String getPath(int index) {
+        checkIndex(index);
+        return paths[index];
+    }
+
+    public String getMessage(int index) {
+        checkIndex(index);
+        return messages[index];
+    }
+
+    /**
+     * Throws the message of the first violation, as {@code build()} does.
+     *
+     * @throws IllegalArgumentException if there is a violation
+     */
+    public void throwIfInvalid() throws IllegalArgumentException {
+        if (size > 0)
+            throw new IllegalArgumentException(messages[0]);
+    }
+
+    /**
+     * @param property name of the property, null for the model itself
+     */
+    public void add(Code code, String property, String message) {
+        add(code, property, -1, message);
+    }
+
+    private void add(Code code, String property, int index, String message) {
+        if (failFast)
+            throw new IllegalArgumentException(message);
+        if (codes == null) {
+            codes = new Code[INITIAL_CAPACITY];
+            paths = new String[INITIAL_CAPACITY];
+            messages = new String[INITIAL_CAPACITY];
+        } else if (size == codes.length) {
+            int capacity = 2 * size;
+            codes = Arrays.copyOf(codes, capacity);
+            paths = Arrays.copyOf(paths, capacity);
+            messages = Arrays.copyOf(messages, capacity);
+        }
+        codes[size] = code;
+        paths[size] = path(property, index);
+        messages[size] = message;
+        size++;
+    }
+
+    /**
+     * @return true if the value is set
+     */
+    public boolean requireNonNull(Object value, String property, String message) {
+        if (value != null)
+            return true;
+        add(Code.MISSING, property, message);
+        return false;
+    }
+
+    /**
+     * @return true if the value is neither null nor empty
+     */
+    public boolean requireNonEmpty(String value, String property, String message) {
+        if (isSet(value))
+            return true;
+        add(Code.MISSING, property, message);
+        return false;
+    }
+
+    /**
+     * Requires a list without null elements, reporting each null element at its index.
+     *
+     * @return true if the list is set and has no null element
+     */
+    public boolean requireElements(List<?> values, String property, String message) {
+        if (values == null) {
+            add(Code.MISSING, property, message);
+            return false;
+        }
+        boolean valid = true;
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) == null) {
+                add(Code.NULL_ELEMENT, property, i, message);
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Requires one of two alternative values to be neither null nor empty.
+     *
+     * @return true if one of the values is set
+     */
+    public boolean requireOneOf(String first, String second, String message) {
+        if (isSet(first) || isSet(second))
+            return true;
+        add(Code.MISSING_ONE_OF, null, message);
+        return false;
+    }
+
+    /**
+     * Requires one of three alternative values to be neither null nor empty.
+     *
+     * @return true if one of the values is set
+     */
+    public boolean requireOneOf(String first, String second, String third, String message) {
+        if (isSet(first) || isSet(second) || isSet(third))
+            return true;
+        add(Code.MISSING_ONE_OF, null, message);
+        return false;
+    }
+
+    /**
+     * Validates a contained model under the property, if set.
+     */
+    public void validate(String property, Validatable value) {
+        if (value == null || failFast)
+            return;
+        push(property, -1);
+        value.validate(this);
+        depth--;
+    }
+
+    /**
+     * Validates the set elements of a contained list under the property and their index.
+     */
+    public void validate(String property, List<? extends Validatable> values) {
+        if (values == null || failFast)
+            return;
+        for (int i = 0; i < values.size(); i++) {
+            Validatable value = values.get(i);
+            if (value != null) {
+                push(property, i);
+                value.validate(this);
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * @return one violation per line, as {@code path: message (CODE)}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                builder.append('\n');
+            builder.append(paths[i]).append(": ").append(messages[i]).append(" (").append(codes[i]).append(')');
+        }
+        return builder.toString();
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    private void push(String segment, int index) {
+        if (segments == null) {
+            segments = new String[INITIAL_CAPACITY];
+            indices = new int[INITIAL_CAPACITY];
+        } else if (depth == segments.length) {
+            segments = Arrays.copyOf(segments, 2 * depth);
+            indices = Arrays.copyOf(indices, 2 * depth);
+        }
+        segments[depth] = segment;
+        indices[depth] = index;
+        depth++;
+    }
+
+    private String path(String property, int index) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < depth; i++)
+            appendSegment(builder, segments[i], indices[i]);
+        if (property != null)
+            appendSegment(builder, property, index);
+        return builder.toString();
+    }
+
+    private static void appendSegment(StringBuilder builder, String segment, int index) {
+        if (builder.length() > 0)
+            builder.append('.');
+        builder.append(segment);
+        if (index >= 0)
+            builder.append('[').append(index).append(']');
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Violation " + index + " of " + size);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+import com.samsungpay.s2p.common.jwt.Algorithm;
+
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares throughput and latency of signing directly on the calling threads with signing through a
+ * {@link SigningCoalescer} for several window and batch sizes.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.samsungpay.s2p.common.CoalescerBenchmark [callers] [requests per caller]}.
+ */
+public class CoalescerBenchmark {
+    private static final long[] WINDOW_MICROS = {0, 200, 1000};
+    private static final int[] BATCH_SIZES = {1, 16, 64};
+
+    public static void main(String[] args) throws Exception {
+        int callers = args.length > 0 ? Integer.parseInt(args[0]) : 4 * Runtime.getRuntime().availableProcessors();
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        final PrivateKey key = generator.generateKeyPair().getPrivate();
+        final S2PRequest.Builder builder = S2PRequest.newBuilder()
+                .setKeyID("benchmark")
+                .setRequest(S2PRequest.Request.SAVE_TO_SPAY_MEMBERSHIP);
+        // pooled signatures shared by the calling threads
+        final Algorithm pooled = new SignerService(callers).getAlgorithm("benchmark", key);
+
+        System.out.println(callers + " callers, " + requests + " requests each");
+        run("direct", callers, requests, new Signer() {
+            @Override
+            public void sign(AbstractRegistration registration) throws Exception {
+                builder.sign(pooled, registration);
+            }
+        });
+
+        for (long window : WINDOW_MICROS) {
+            for (int batchSize : BATCH_SIZES) {
+                final SigningCoalescer coalescer = SigningCoalescer.newBuilder()
+                        .setKeyID("benchmark")
+                        .setRequest(S2PRequest.Request.SAVE_TO_SPAY_MEMBERSHIP)
+                        .setPrivateKey(key)
+                        .setWorkers(Runtime.getRuntime().availableProcessors())
+                        .setMaxBatchSize(batchSize)
+                        .setWindow(window, TimeUnit.MICROSECONDS)
+                        .build();
+                try {
+                    run("window " + window + "us batch " + batchSize, callers, requests, new Signer() {
+                        @Override
+                        public void sign(AbstractRegistration registration) throws Exception {
+                            coalescer.submit(registration).get();
+                        }
+                    });
+                } finally {
+                    coalescer.close();
+                }
+            }
+        }
+    }
+
+    private static void run(String name, final int callers, final int requests, final Signer signer) throws Exception {
+        final long[] latencies = new long[callers * requests];
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(callers);
+        long start = System.nanoTime();
+        for (int c = 0; c < callers; c++) {
+            final int caller = c;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < requests; i++) {
+                            long begin = System.nanoTime();
+                            try {
+                                signer.sign(new BenchmarkRegistration(caller * requests + i));
+                            } catch (Exception e) {
+                                failures.incrementAndGet();
+                            }
+                            latencies[caller * requests + i] = System.nanoTime() - begin;
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.println(String.format("%-24s %8.0f ops/s  p50 %8.2f ms  p99 %8.2f ms  failures %d",
+                name, latencies.length / seconds,
+                latencies[latencies.length / 2] / 1e6, latencies[latencies.length * 99 / 100] / 1e6, failures.get()));
+    }
+
+    private interface Signer {
+        void sign(AbstractRegistration registration) throws Exception;
+    }
+
+    private static class BenchmarkRegistration extends AbstractRegistration {
+        private final int id;
+
+        private BenchmarkRegistration(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+import com.samsungpay.s2p.common.jwt.Algorithm;
+import com.samsungpay.s2p.common.jwt.JWSAlgorithm;
+
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.spec.ECGenParameterSpec;
+
+/**
+ * Compares the signing throughput of the supported JWS algorithms on a typical signing input.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.samsungpay.s2p.common.SigningBenchmark [seconds per algorithm]}.
+ * Algorithms the platform does not provide are skipped.
+ */
+public class SigningBenchmark {
+    private static final int INPUT_SIZE = 1024;
+    private static final int WARM_UP_ITERATIONS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        long durationMillis = (args.length > 0 ? Long.parseLong(args[0]) : 5) * 1000;
+        byte[] input = new byte[INPUT_SIZE];
+        for (int i = 0; i < input.length; i++)
+            input[i] = (byte) ('A' + i % 26);
+        System.out.println("RSA provider: " + Util.getRSAProvider().getName());
+
+        for (JWSAlgorithm jwsAlgorithm : JWSAlgorithm.values()) {
+            PrivateKey key;
+            try {
+                key = newKey(jwsAlgorithm);
+            } catch (NoSuchAlgorithmException e) {
+                System.out.println(jwsAlgorithm + ": not available (" + e.getMessage() + ")");
+                continue;
+            }
+            Algorithm algorithm = new SignerService(1).getAlgorithm("benchmark", jwsAlgorithm, key);
+
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++)
+                algorithm.sign(input, 0, input.length);
+
+            long operations = 0;
+            long start = System.nanoTime();
+            long end = start + durationMillis * 1000000L;
+            long now;
+            do {
+                algorithm.sign(input, 0, input.length);
+                operations++;
+                now = System.nanoTime();
+            } while (now < end);
+
+            double seconds = (now - start) / 1e9;
+            System.out.println(String.format("%-6s %10.0f ops/s %10.1f us/op",
+                    jwsAlgorithm, operations / seconds, seconds * 1e6 / operations));
+        }
+    }
+
+    private static PrivateKey newKey(JWSAlgorithm jwsAlgorithm) throws Exception {
+        KeyPairGenerator generator;
+        switch (jwsAlgorithm) {
+            case ES256:
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                break;
+            case EdDSA:
+                generator = KeyPairGenerator.getInstance("Ed25519");
+                break;
+            default:
+                generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+        }
+        return generator.generateKeyPair().getPrivate();
+    }
+}
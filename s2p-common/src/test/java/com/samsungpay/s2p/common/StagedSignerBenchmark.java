@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.common;
+
+import java.security.KeyPairGenerator;
+import java.util.Iterator;
+
+/**
+ * Prints the throughput of each {@link StagedSigner} stage, showing which stage bounds the pipeline.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.samsungpay.s2p.common.StagedSignerBenchmark [registrations]}.
+ */
+public class StagedSignerBenchmark {
+    public static void main(String[] args) throws Exception {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        StagedSigner signer = StagedSigner.newBuilder()
+                .setKeyID("benchmark")
+                .setRequest(S2PRequest.Request.SAVE_TO_SPAY_MEMBERSHIP)
+                .setPrivateKey(generator.generateKeyPair().getPrivate())
+                .build();
+
+        // the first run warms up the stages
+        for (int run = 0; run < 2; run++) {
+            final long[] bytes = new long[1];
+            long start = System.nanoTime();
+            Iterable<StagedSigner.StageStatistics> statistics = signer.run(registrations(count), new StagedSigner.Sink() {
+                @Override
+                public void accept(SigningResult result, byte[] encoded, int length) {
+                    bytes[0] += length;
+                }
+            });
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.println(String.format("%s: %d registrations, %.0f/s, %d encoded bytes",
+                    run == 0 ? "warm-up" : "measured", count, count / seconds, bytes[0]));
+            for (StagedSigner.StageStatistics stage : statistics)
+                System.out.println("  " + stage);
+        }
+    }
+
+    private static Iterator<AbstractRegistration> registrations(final int count) {
+        return new Iterator<AbstractRegistration>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public AbstractRegistration next() {
+                return new BenchmarkRegistration(next++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static class BenchmarkRegistration extends AbstractRegistration {
+        private final int id;
+        private final String name;
+
+        private BenchmarkRegistration(int id) {
+            this.id = id;
+            this.name = "Registration " + id;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -21,14 +21,27 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.samsungpay.s2p.common.AbstractRegistration;
+import com.samsungpay.s2p.common.SerializationContext;
 import com.samsungpay.s2p.giftcard.model.Card;
 import com.samsungpay.s2p.giftcard.model.Merchant;
+import com.samsungpay.s2p.common.model.Fingerprint;
+import com.samsungpay.s2p.common.model.Fingerprintable;
+import com.samsungpay.s2p.common.model.Validatable;
+import com.samsungpay.s2p.common.model.ValidationResult;
+
+import java.util.Objects;
 
 @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY, creatorVisibility = JsonAutoDetect.Visibility.NONE, getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE, setterVisibility = JsonAutoDetect.Visibility.NONE)
 @JsonIgnoreProperties(ignoreUnknown = true)
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class Registration extends AbstractRegistration {
+@JsonSerialize(using = RegistrationSerializer.class)
+public class Registration extends AbstractRegistration implements Fingerprintable, Validatable {
+    static {
+        SerializationContext.model().register(Registration.class);
+    }
+
     public static Builder newBuilder() {
         return new Builder();
     }
@@ -50,6 +63,48 @@ public class Registration extends AbstractRegistration {
         return merchant;
     }
 
+    /**
+     * Structural fingerprint, computed without serializing the registration.
+     */
+    @Override
+    public Fingerprint getFingerprint() {
+        return Fingerprint.of(this);
+    }
+
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        hasher.put(card);
+        hasher.put(merchant);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        Registration other = (Registration) o;
+        return Objects.equals(card, other.card) &&
+                Objects.equals(merchant, other.merchant);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(card, merchant);
+    }
+
+    @Override
+    public void validate(ValidationResult result) {
+        validate(result, card, merchant);
+    }
+
+    private static void validate(ValidationResult result, Card card, Merchant merchant) {
+        result.requireNonNull(card, "card", "Registration card is missing");
+        result.requireNonNull(merchant, "merchant", "Registration merchant is missing");
+        result.validate("card", card);
+        result.validate("merchant", merchant);
+    }
+
     public static class Builder {
         private Card card;
         private Merchant merchant;
@@ -67,11 +122,19 @@ public class Registration extends AbstractRegistration {
             return this;
         }
 
+        /**
+         * Adds the violations of the properties, and those of the contained models, to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            Registration.validate(result, card, merchant);
+            return result.size() == violations;
+        }
+
         public Registration build() throws IllegalArgumentException {
-            if (card == null)
-                throw new IllegalArgumentException("Registration card is missing");
-            if (merchant == null)
-                throw new IllegalArgumentException("Registration merchant is missing");
+            validate(ValidationResult.failFast());
 
             Registration registration = new Registration();
             registration.card = card;
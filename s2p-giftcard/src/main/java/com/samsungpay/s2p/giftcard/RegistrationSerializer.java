@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.giftcard;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.samsungpay.s2p.common.StreamingSerializer;
+
+import java.io.IOException;
+
+import static com.samsungpay.s2p.giftcard.model.ModelSerializers.CARD;
+import static com.samsungpay.s2p.giftcard.model.ModelSerializers.MERCHANT;
+
+/**
+ * Reflection-free serializer of the giftcard {@link Registration}; null properties are omitted.
+ */
+public class RegistrationSerializer extends StreamingSerializer<Registration> {
+    private static final long serialVersionUID = 1L;
+
+    private static final SerializedString CARD_FIELD = new SerializedString("card");
+    private static final SerializedString MERCHANT_FIELD = new SerializedString("merchant");
+
+    public RegistrationSerializer() {
+        super(Registration.class);
+    }
+
+    @Override
+    public void write(Registration value, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        if (value.getCard() != null) {
+            gen.writeFieldName(CARD_FIELD);
+            CARD.write(value.getCard(), gen);
+        }
+        if (value.getMerchant() != null) {
+            gen.writeFieldName(MERCHANT_FIELD);
+            MERCHANT.write(value.getMerchant(), gen);
+        }
+        gen.writeEndObject();
+    }
+}
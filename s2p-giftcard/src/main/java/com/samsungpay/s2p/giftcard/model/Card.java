@@ -17,7 +17,16 @@
 
 package com.samsungpay.s2p.giftcard.model;
 
-public class Card {
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.samsungpay.s2p.common.model.Fingerprint;
+import com.samsungpay.s2p.common.model.Fingerprintable;
+import com.samsungpay.s2p.common.model.Validatable;
+import com.samsungpay.s2p.common.model.ValidationResult;
+
+import java.util.Objects;
+
+@JsonSerialize(using = ModelSerializers.CardSerializer.class)
+public class Card implements Fingerprintable, Validatable {
     private String id;
     private String imageUrl;
     private Tnc tnc;
@@ -40,6 +49,42 @@ public class Card {
         return new Builder();
     }
 
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        hasher.putString(id);
+        hasher.putString(imageUrl);
+        hasher.put(tnc);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        Card other = (Card) o;
+        return Objects.equals(id, other.id) &&
+                Objects.equals(imageUrl, other.imageUrl) &&
+                Objects.equals(tnc, other.tnc);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, imageUrl, tnc);
+    }
+
+    @Override
+    public void validate(ValidationResult result) {
+        validate(result, id, imageUrl, tnc);
+    }
+
+    private static void validate(ValidationResult result, String id, String imageUrl, Tnc tnc) {
+        result.requireNonEmpty(id, "id", "Card id is missing");
+        result.requireNonEmpty(imageUrl, "imageUrl", "Card image url is missing");
+        result.requireNonNull(tnc, "tnc", "Card terms and conditions is missing");
+        result.validate("tnc", tnc);
+    }
+
     public static class Builder {
         private String id;
         private String imageUrl;
@@ -62,13 +107,19 @@ public class Card {
             return this;
         }
 
+        /**
+         * Adds the violations of the properties, and those of the contained models, to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            Card.validate(result, id, imageUrl, tnc);
+            return result.size() == violations;
+        }
+
         public Card build() throws IllegalArgumentException {
-            if (id == null || id.isEmpty())
-                throw new IllegalArgumentException("Card id is missing");
-            if (imageUrl == null || imageUrl.isEmpty())
-                throw new IllegalArgumentException("Card image url is missing");
-            if (tnc == null)
-                throw new IllegalArgumentException("Card terms and conditions is missing");
+            validate(ValidationResult.failFast());
 
             Card card = new Card();
             card.id = id;
@@ -17,7 +17,16 @@
 
 package com.samsungpay.s2p.giftcard.model;
 
-public class Merchant {
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.samsungpay.s2p.common.model.Fingerprint;
+import com.samsungpay.s2p.common.model.Fingerprintable;
+import com.samsungpay.s2p.common.model.Validatable;
+import com.samsungpay.s2p.common.model.ValidationResult;
+
+import java.util.Objects;
+
+@JsonSerialize(using = ModelSerializers.MerchantSerializer.class)
+public class Merchant implements Fingerprintable, Validatable {
     private String name;
     private String logoUrl;
 
@@ -35,6 +44,38 @@ public class Merchant {
         return new Builder();
     }
 
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        hasher.putString(name);
+        hasher.putString(logoUrl);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        Merchant other = (Merchant) o;
+        return Objects.equals(name, other.name) &&
+                Objects.equals(logoUrl, other.logoUrl);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, logoUrl);
+    }
+
+    @Override
+    public void validate(ValidationResult result) {
+        validate(result, name, logoUrl);
+    }
+
+    private static void validate(ValidationResult result, String name, String logoUrl) {
+        result.requireNonEmpty(name, "name", "Merchant name is missing");
+        result.requireNonEmpty(logoUrl, "logoUrl", "Merchant logo url is missing");
+    }
+
     public static class Builder {
         private String name;
         private String logoUrl;
@@ -51,11 +92,19 @@ public class Merchant {
             return this;
         }
 
+        /**
+         * Adds the violations of the properties to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            Merchant.validate(result, name, logoUrl);
+            return result.size() == violations;
+        }
+
         public Merchant build() throws IllegalArgumentException {
-            if (name == null || name.isEmpty())
-                throw new IllegalArgumentException("Merchant name is missing");
-            if (logoUrl == null || logoUrl.isEmpty())
-                throw new IllegalArgumentException("Merchant logo url is missing");
+            validate(ValidationResult.failFast());
 
             Merchant merchant = new Merchant();
             merchant.name = name;
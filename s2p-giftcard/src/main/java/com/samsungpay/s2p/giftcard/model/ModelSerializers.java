@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.giftcard.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.samsungpay.s2p.common.StreamingSerializer;
+
+import java.io.IOException;
+
+/**
+ * Reflection-free serializers of the giftcard models.
+ * <p>
+ * Property order and null handling follow the field based mapper: declared field order, null values written out.
+ */
+public final class ModelSerializers {
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString IMAGE_URL = new SerializedString("imageUrl");
+    private static final SerializedString TNC_FIELD = new SerializedString("tnc");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString LOGO_URL = new SerializedString("logoUrl");
+    private static final SerializedString URL = new SerializedString("url");
+    private static final SerializedString CONTENT = new SerializedString("content");
+
+    public static final TncSerializer TNC = new TncSerializer();
+    public static final CardSerializer CARD = new CardSerializer();
+    public static final MerchantSerializer MERCHANT = new MerchantSerializer();
+
+    private ModelSerializers() {
+    }
+
+    public static class TncSerializer extends StreamingSerializer<Tnc> {
+        private static final long serialVersionUID = 1L;
+
+        public TncSerializer() {
+            super(Tnc.class);
+        }
+
+        @Override
+        public void write(Tnc value, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            writeStringField(gen, URL, value.getUrl());
+            writeStringField(gen, CONTENT, value.getContent());
+            gen.writeEndObject();
+        }
+    }
+
+    public static class CardSerializer extends StreamingSerializer<Card> {
+        private static final long serialVersionUID = 1L;
+
+        public CardSerializer() {
+            super(Card.class);
+        }
+
+        @Override
+        public void write(Card value, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            writeStringField(gen, ID, value.getId());
+            writeStringField(gen, IMAGE_URL, value.getImageUrl());
+            gen.writeFieldName(TNC_FIELD);
+            TNC.writeNullable(value.getTnc(), gen);
+            gen.writeEndObject();
+        }
+    }
+
+    public static class MerchantSerializer extends StreamingSerializer<Merchant> {
+        private static final long serialVersionUID = 1L;
+
+        public MerchantSerializer() {
+            super(Merchant.class);
+        }
+
+        @Override
+        public void write(Merchant value, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            writeStringField(gen, NAME, value.getName());
+            writeStringField(gen, LOGO_URL, value.getLogoUrl());
+            gen.writeEndObject();
+        }
+    }
+}
@@ -17,7 +17,18 @@
 
 package com.samsungpay.s2p.giftcard.model;
 
-public class Tnc {
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.samsungpay.s2p.common.model.Fingerprint;
+import com.samsungpay.s2p.common.model.Fingerprintable;
+import com.samsungpay.s2p.common.model.Interner;
+import com.samsungpay.s2p.common.model.Validatable;
+import com.samsungpay.s2p.common.model.ValidationResult;
+
+import java.util.Objects;
+
+@JsonSerialize(using = ModelSerializers.TncSerializer.class)
+public class Tnc implements Fingerprintable, Validatable {
+    private static final Interner<Tnc> INTERNER = new Interner<Tnc>();
 
     private String url;
     private String content;
@@ -32,10 +43,48 @@ public class Tnc {
         return url;
     }
 
+    /**
+     * @return the shared instance equal to the given one, see {@link Interner}
+     */
+    public static Tnc intern(Tnc tnc) {
+        return INTERNER.intern(tnc);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        Tnc other = (Tnc) o;
+        return Objects.equals(url, other.url) &&
+                Objects.equals(content, other.content);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(url) + Objects.hashCode(content);
+    }
+
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        hasher.putString(url);
+        hasher.putString(content);
+    }
+
     public static Builder newBuilder() {
         return new Builder();
     }
 
+    @Override
+    public void validate(ValidationResult result) {
+        validate(result, content, url);
+    }
+
+    private static void validate(ValidationResult result, String content, String url) {
+        result.requireOneOf(content, url, "Terms and Conditions' content and url are both missing, at least one of them has to be provided");
+    }
+
     public static class Builder {
         private String url;
         private String content;
@@ -52,16 +101,31 @@ public class Tnc {
             return this;
         }
 
+        /**
+         * Adds the violations of the properties to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            Tnc.validate(result, content, url);
+            return result.size() == violations;
+        }
+
         public Tnc build() throws IllegalArgumentException {
-            boolean noContent = content == null || content.isEmpty();
-            boolean noUrl = url == null || url.isEmpty();
-            if (noContent && noUrl)
-                throw new IllegalArgumentException("Terms and Conditions' content and url are both missing, at least one of them has to be provided");
+            validate(ValidationResult.failFast());
 
             Tnc tnc = new Tnc();
             tnc.content = content;
             tnc.url = url;
             return tnc;
         }
+
+        /**
+         * @return the shared instance equal to {@link #build()}
+         */
+        public Tnc buildInterned() throws IllegalArgumentException {
+            return intern(build());
+        }
     }
 }
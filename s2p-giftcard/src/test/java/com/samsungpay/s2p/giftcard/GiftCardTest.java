@@ -18,15 +18,23 @@
 package com.samsungpay.s2p.giftcard;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.samsungpay.s2p.common.AbstractRegistration;
 import com.samsungpay.s2p.common.S2PRequest;
 import com.samsungpay.s2p.common.Util;
+import com.samsungpay.s2p.common.model.ValidationResult;
 import com.samsungpay.s2p.giftcard.model.Card;
 import com.samsungpay.s2p.giftcard.model.Merchant;
 import com.samsungpay.s2p.giftcard.model.Tnc;
 import org.junit.*;
 import org.junit.rules.ExpectedException;
 
+import java.io.BufferedReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -35,6 +43,8 @@ import java.security.SignatureException;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.spec.InvalidKeySpecException;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertNotNull;
@@ -42,6 +52,7 @@ import static org.junit.Assert.assertThat;
 
 public class GiftCardTest {
     private static final String PRIVATE_KEY_PEM_PATH = "src/test/resources/secret/dummyKey.pem";
+    private static final String GOLDEN_CORPUS_PATH = "src/test/resources/golden/registrations.json";
     private static RSAPrivateKey PRIVATE_KEY;
 
     @Before
@@ -71,6 +82,36 @@ public class GiftCardTest {
                 .build();
     }
 
+    @Test
+    public void verifyTncInterning() throws JsonProcessingException {
+        Tnc first = Tnc.newBuilder().url("https://tnc").content("terms").buildInterned();
+        Tnc second = Tnc.newBuilder().url("https://tnc").content("terms").buildInterned();
+        Tnc other = Tnc.newBuilder().url("https://tnc").buildInterned();
+
+        Assert.assertSame(first, second);
+        Assert.assertNotSame(first, other);
+        Assert.assertEquals(first, Tnc.newBuilder().url("https://tnc").content("terms").build());
+        Assert.assertSame(first, Tnc.intern(Tnc.newBuilder().url("https://tnc").content("terms").build()));
+        Assert.assertNull(Tnc.intern(null));
+    }
+
+    @Test
+    public void verifyRegistrationEqualityAndFingerprint() throws IOException {
+        Registration registration = constructRegistrationObject();
+        Registration parsed = registration.readJson(registration.toJson(), Registration.class);
+
+        Assert.assertEquals(registration, parsed);
+        Assert.assertEquals(registration.hashCode(), parsed.hashCode());
+        Assert.assertEquals(registration.getFingerprint(), parsed.getFingerprint());
+
+        Registration changed = Registration.newBuilder()
+                .card(registration.getCard())
+                .merchant(Merchant.newBuilder().name("other").logoUrl(registration.getMerchant().getLogoUrl()).build())
+                .build();
+        Assert.assertNotEquals(registration, changed);
+        Assert.assertNotEquals(registration.getFingerprint(), changed.getFingerprint());
+    }
+
     @Test
     public void verifyCardIDRequired() {
         thrown.expect(IllegalArgumentException.class);
@@ -235,6 +276,26 @@ public class GiftCardTest {
         Assert.assertEquals(merchantLogo, registration.getMerchant().getLogoUrl());
     }
 
+    @Test
+    public void verifyToJsonMatchesObjectMapper() throws IOException {
+        Registration registration = constructRegistrationObject();
+        String expected = reflectiveObjectMapper().writeValueAsString(registration);
+
+        Assert.assertEquals(expected, registration.toJson());
+    }
+
+    @Test
+    public void verifyStreamingSerializerMatchesGoldenCorpus() throws IOException {
+        List<String> golden = readLines(GOLDEN_CORPUS_PATH);
+        List<Registration> corpus = goldenCorpus();
+
+        Assert.assertEquals(golden.size(), corpus.size());
+        for (int i = 0; i < corpus.size(); i++) {
+            Assert.assertEquals("corpus entry " + i, golden.get(i), corpus.get(i).toJson());
+            Assert.assertArrayEquals("corpus entry " + i, golden.get(i).getBytes("UTF-8"), corpus.get(i).toJsonBytes());
+        }
+    }
+
     @Test
     public void testRS256JWTCreateAndSign() throws NoSuchAlgorithmException, InvalidKeyException, SignatureException, ParseException, IOException, InvalidKeySpecException, NoSuchProviderException {
         // Upon successful registration, each merchant will obtain a keyId and appId of registered service
@@ -254,6 +315,99 @@ public class GiftCardTest {
                 .sign();
     }
 
+    private List<Registration> goldenCorpus() {
+        final String escaped = "quote \" backslash \\ slash / tab\t newline\n control\u0001 caf\u00e9 \u2028 \ud83d\ude00 <script>&'";
+        List<Registration> corpus = new ArrayList<Registration>();
+
+        corpus.add(constructRegistrationObject());
+
+        corpus.add(Registration.newBuilder()
+                .card(Card.newBuilder()
+                        .id("1")
+                        .imageUrl("image")
+                        .tnc(Tnc.newBuilder()
+                                .content("content only")
+                                .build())
+                        .build())
+                .merchant(Merchant.newBuilder()
+                        .name("merchant")
+                        .logoUrl("logo")
+                        .build())
+                .build());
+
+        corpus.add(Registration.newBuilder()
+                .card(Card.newBuilder()
+                        .id(escaped)
+                        .imageUrl(escaped)
+                        .tnc(Tnc.newBuilder()
+                                .url(escaped)
+                                .content(escaped)
+                                .build())
+                        .build())
+                .merchant(Merchant.newBuilder()
+                        .name(escaped)
+                        .logoUrl("\uce74\ub4dc")
+                        .build())
+                .build());
+
+        corpus.add(Registration.newBuilder()
+                .card(Card.newBuilder()
+                        .id("2")
+                        .imageUrl("image")
+                        .tnc(Tnc.newBuilder()
+                                .url("")
+                                .content("empty url")
+                                .build())
+                        .build())
+                .merchant(Merchant.newBuilder()
+                        .name("merchant")
+                        .logoUrl("logo")
+                        .build())
+                .build());
+
+        return corpus;
+    }
+
+    private static List<String> readLines(String path) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path), "UTF-8"));
+        try {
+            List<String> lines = new ArrayList<String>();
+            String line;
+            while ((line = reader.readLine()) != null)
+                lines.add(line);
+            return lines;
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void verifyValidateCollectsNestedViolations() throws IOException {
+        Registration registration = constructRegistrationObject();
+        String json = registration.toJson()
+                .replace("\"" + registration.getCard().getImageUrl() + "\"", "\"\"")
+                .replace("\"" + registration.getCard().getTnc().getUrl() + "\"", "null");
+        Registration parsed = registration.readJson(json, Registration.class);
+
+        ValidationResult result = new ValidationResult();
+        registration.validate(result);
+        Assert.assertTrue(result.isValid());
+
+        parsed.validate(result);
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("card.imageUrl", result.getPath(0));
+        Assert.assertEquals(ValidationResult.Code.MISSING, result.getCode(0));
+        Assert.assertEquals("card.tnc", result.getPath(1));
+        Assert.assertEquals(ValidationResult.Code.MISSING_ONE_OF, result.getCode(1));
+        Assert.assertEquals("card.imageUrl: Card image url is missing (MISSING)\n"
+                + "card.tnc: Terms and Conditions' content and url are both missing, at least one of them has to be provided (MISSING_ONE_OF)",
+                result.toString());
+
+        Assert.assertFalse(Registration.newBuilder().card(parsed.getCard()).validate(result.clear()));
+        Assert.assertEquals("merchant", result.getPath(0));
+        Assert.assertEquals(3, result.size());
+    }
+
     private Registration constructRegistrationObject() {
         Tnc tnc = Tnc.newBuilder()
                 .url("http://us.playstation.com/")
@@ -275,4 +429,19 @@ public class GiftCardTest {
                 .merchant(merchant)
                 .build();
     }
+
+    /**
+     * Field reflecting mapper that ignores {@code @JsonSerialize}, so toJson() is compared against the serialization
+     * the streaming serializers replaced rather than against themselves.
+     */
+    private static ObjectMapper reflectiveObjectMapper() {
+        ObjectMapper mapper = AbstractRegistration.newObjectMapper();
+        mapper.setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+            @Override
+            public Object findSerializer(Annotated annotated) {
+                return null;
+            }
+        });
+        return mapper;
+    }
 }
@@ -18,14 +18,25 @@
 package com.samsungpay.s2p.membership;
 
 import com.fasterxml.jackson.annotation.*;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.samsungpay.s2p.common.AbstractRegistration;
+import com.samsungpay.s2p.common.SerializationContext;
+import com.samsungpay.s2p.common.model.Fingerprint;
+import com.samsungpay.s2p.common.model.Fingerprintable;
+import com.samsungpay.s2p.common.model.Validatable;
+import com.samsungpay.s2p.common.model.ValidationResult;
 import com.samsungpay.s2p.membership.model.*;
 import java.util.List;
+import java.util.Objects;
 
 @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY, creatorVisibility = JsonAutoDetect.Visibility.NONE, getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE, setterVisibility = JsonAutoDetect.Visibility.NONE)
 @JsonIgnoreProperties(ignoreUnknown = true)
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class Registration extends AbstractRegistration {
+@JsonSerialize(using = RegistrationSerializer.class)
+public class Registration extends AbstractRegistration implements Fingerprintable, Validatable {
+    static {
+        SerializationContext.model().register(Registration.class);
+    }
 
     public static Builder newBuilder() {
         return new Builder();
@@ -61,6 +72,9 @@ public class Registration extends AbstractRegistration {
     @JsonProperty("cardArt")
     private CardArt cardArt;
 
+    @JsonIgnore
+    private transient RegistrationTemplate template;
+
     private Registration() {
     }
 
@@ -100,6 +114,77 @@ public class Registration extends AbstractRegistration {
 
     public CardArt getCardArt() { return cardArt; }
 
+    /**
+     * @return the template the registration was created from, or null
+     */
+    RegistrationTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * Structural fingerprint, computed without serializing the registration.
+     */
+    @Override
+    public Fingerprint getFingerprint() {
+        return Fingerprint.of(this);
+    }
+
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        hasher.putString(cardId);
+        hasher.putString(membershipId);
+        hasher.putEnum(membershipIdType);
+        hasher.putString(programName);
+        hasher.put(barcode);
+        hasher.put(tracks);
+        hasher.putEnum(cardStatus);
+        hasher.putList(userMessages);
+        hasher.putList(customClaims);
+        hasher.put(cardArt);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        Registration other = (Registration) o;
+        return Objects.equals(cardId, other.cardId) &&
+                Objects.equals(membershipId, other.membershipId) &&
+                Objects.equals(membershipIdType, other.membershipIdType) &&
+                Objects.equals(programName, other.programName) &&
+                Objects.equals(barcode, other.barcode) &&
+                Objects.equals(tracks, other.tracks) &&
+                Objects.equals(cardStatus, other.cardStatus) &&
+                Objects.equals(userMessages, other.userMessages) &&
+                Objects.equals(customClaims, other.customClaims) &&
+                Objects.equals(cardArt, other.cardArt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cardId, membershipId, membershipIdType, programName, barcode, tracks, cardStatus, userMessages, customClaims, cardArt);
+    }
+
+    @Override
+    public void validate(ValidationResult result) {
+        validate(result, cardId, membershipId, membershipIdType, programName, barcode, tracks, userMessages, customClaims, cardArt);
+    }
+
+    private static void validate(ValidationResult result, String cardId, String membershipId, MembershipIDType membershipIdType, String programName,
+            Barcode barcode, Tracks tracks, List<UserMessage> userMessages, List<CustomClaim> customClaims, CardArt cardArt) {
+        result.requireNonEmpty(cardId, "cardId", "Registration card ID is missing");
+        result.requireNonEmpty(membershipId, "membershipId", "Registration membership ID is missing");
+        result.requireNonNull(membershipIdType, "membershipIdType", "Registration membership ID type is missing");
+        result.requireNonEmpty(programName, "programName", "Registration programName is missing");
+        result.validate("barcode", barcode);
+        result.validate("tracks", tracks);
+        result.validate("userMessages", userMessages);
+        result.validate("customClaims", customClaims);
+        result.validate("cardArt", cardArt);
+    }
+
     public static final class Builder {
         private String cardId;
         private String membershipId;
@@ -111,6 +196,7 @@ public class Registration extends AbstractRegistration {
         private List<UserMessage> userMessages;
         private List<CustomClaim> customClaims;
         private CardArt cardArt;
+        private RegistrationTemplate template;
 
         private Builder() {
         }
@@ -165,15 +251,24 @@ public class Registration extends AbstractRegistration {
             return this;
         }
 
+        Builder setTemplate(RegistrationTemplate template) {
+            this.template = template;
+            return this;
+        }
+
+        /**
+         * Adds the violations of the properties, and those of the contained models, to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            Registration.validate(result, cardId, membershipId, membershipIdType, programName, barcode, tracks, userMessages, customClaims, cardArt);
+            return result.size() == violations;
+        }
+
         public Registration build() throws IllegalArgumentException {
-            if (cardId == null || cardId.isEmpty())
-                throw new IllegalArgumentException("Registration card ID is missing");
-            if (membershipId == null || membershipId.isEmpty())
-                throw new IllegalArgumentException("Registration membership ID is missing");
-            if (membershipIdType == null)
-                throw new IllegalArgumentException("Registration membership ID type is missing");
-            if (programName == null || programName.isEmpty())
-                throw new IllegalArgumentException("Registration programName is missing");
+            validate(ValidationResult.failFast());
 
             Registration registration = new Registration();
             registration.cardId = cardId;
@@ -186,6 +281,7 @@ public class Registration extends AbstractRegistration {
             registration.userMessages = userMessages;
             registration.customClaims = customClaims;
             registration.cardArt = cardArt;
+            registration.template = template;
             return registration;
         }
     }
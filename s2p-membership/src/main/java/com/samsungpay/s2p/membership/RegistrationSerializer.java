@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.membership;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.samsungpay.s2p.common.StreamingSerializer;
+import com.samsungpay.s2p.membership.model.Barcode;
+import com.samsungpay.s2p.membership.model.CardArt;
+import com.samsungpay.s2p.membership.model.CustomClaim;
+import com.samsungpay.s2p.membership.model.MembershipIDType;
+import com.samsungpay.s2p.membership.model.Tracks;
+import com.samsungpay.s2p.membership.model.UserMessage;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.samsungpay.s2p.membership.model.ModelSerializers.*;
+
+/**
+ * Reflection-free serializer of the membership {@link Registration}; null properties are omitted.
+ */
+public class RegistrationSerializer extends StreamingSerializer<Registration> {
+    private static final long serialVersionUID = 1L;
+
+    private static final SerializedString CARD_ID = new SerializedString("cardId");
+    private static final SerializedString MEMBERSHIP_ID = new SerializedString("membershipId");
+    private static final SerializedString MEMBERSHIP_ID_TYPE = new SerializedString("membershipIdType");
+    private static final SerializedString PROGRAM_NAME = new SerializedString("programName");
+    private static final SerializedString BARCODE_FIELD = new SerializedString("barcode");
+    private static final SerializedString TRACKS_FIELD = new SerializedString("tracks");
+    private static final SerializedString CARD_STATUS = new SerializedString("cardStatus");
+    private static final SerializedString USER_MESSAGES = new SerializedString("userMessages");
+    private static final SerializedString CUSTOM_CLAIMS = new SerializedString("customClaims");
+    private static final SerializedString CARD_ART_FIELD = new SerializedString("cardArt");
+
+    public RegistrationSerializer() {
+        super(Registration.class);
+    }
+
+    @Override
+    public void write(Registration value, JsonGenerator gen) throws IOException {
+        if (value.getTemplate() != null) {
+            value.getTemplate().write(value, gen);
+            return;
+        }
+        gen.writeStartObject();
+        writeIds(value.getCardId(), value.getMembershipId(), gen);
+        writeProgram(value.getMembershipIdType(), value.getProgramName(), gen);
+        writeCardData(value.getBarcode(), value.getTracks(), gen);
+        writeContent(value.getCardStatus(), value.getUserMessages(), value.getCustomClaims(), value.getCardArt(), gen);
+        gen.writeEndObject();
+    }
+
+    // The properties are written in groups so that RegistrationTemplate pre-serializes the shared ones with this code
+
+    static void writeIds(String cardId, String membershipId, JsonGenerator gen) throws IOException {
+        if (cardId != null)
+            writeStringField(gen, CARD_ID, cardId);
+        if (membershipId != null)
+            writeStringField(gen, MEMBERSHIP_ID, membershipId);
+    }
+
+    static void writeProgram(MembershipIDType membershipIdType, String programName, JsonGenerator gen) throws IOException {
+        if (membershipIdType != null)
+            writeEnumField(gen, MEMBERSHIP_ID_TYPE, membershipIdType);
+        if (programName != null)
+            writeStringField(gen, PROGRAM_NAME, programName);
+    }
+
+    static void writeCardData(Barcode barcode, Tracks tracks, JsonGenerator gen) throws IOException {
+        if (barcode != null) {
+            gen.writeFieldName(BARCODE_FIELD);
+            BARCODE.write(barcode, gen);
+        }
+        if (tracks != null) {
+            gen.writeFieldName(TRACKS_FIELD);
+            TRACKS.write(tracks, gen);
+        }
+    }
+
+    static void writeContent(Registration.CardStatus cardStatus, List<UserMessage> userMessages, List<CustomClaim> customClaims, CardArt cardArt, JsonGenerator gen) throws IOException {
+        if (cardStatus != null)
+            writeEnumField(gen, CARD_STATUS, cardStatus);
+        if (userMessages != null) {
+            gen.writeFieldName(USER_MESSAGES);
+            USER_MESSAGE.writeList(userMessages, gen);
+        }
+        if (customClaims != null) {
+            gen.writeFieldName(CUSTOM_CLAIMS);
+            CUSTOM_CLAIM.writeList(customClaims, gen);
+        }
+        if (cardArt != null) {
+            gen.writeFieldName(CARD_ART_FIELD);
+            CARD_ART.write(cardArt, gen);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.membership;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.samsungpay.s2p.common.AbstractRegistration;
+import com.samsungpay.s2p.common.model.ValidationResult;
+import com.samsungpay.s2p.membership.model.Barcode;
+import com.samsungpay.s2p.membership.model.CardArt;
+import com.samsungpay.s2p.membership.model.CustomClaim;
+import com.samsungpay.s2p.membership.model.MembershipIDType;
+import com.samsungpay.s2p.membership.model.Tracks;
+import com.samsungpay.s2p.membership.model.UserMessage;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registrations of a campaign sharing everything but the card identifiers, barcode and tracks.
+ * <p>
+ * The shared properties are serialized once when the template is built. Registrations created from the template
+ * splice their own properties between the pre-serialized fragments, producing exactly the JSON of an equivalent
+ * registration built with {@link Registration#newBuilder()} at the cost of the card specific properties only.
+ * The shared values must not be modified once the template is built.
+ */
+public class RegistrationTemplate {
+    private static final JsonFactory FACTORY = AbstractRegistration.newObjectMapper().getFactory();
+
+    private final MembershipIDType membershipIdType;
+    private final String programName;
+    private final Registration.CardStatus cardStatus;
+    private final List<UserMessage> userMessages;
+    private final List<CustomClaim> customClaims;
+    private final CardArt cardArt;
+
+    // membershipIdType and programName, between the ids and the card data
+    private final SerializedString program;
+    // cardStatus, userMessages, customClaims and cardArt, after the card data
+    private final SerializedString content;
+
+    private RegistrationTemplate(Builder builder) throws IOException {
+        this.membershipIdType = builder.membershipIdType;
+        this.programName = builder.programName;
+        this.cardStatus = builder.cardStatus;
+        this.userMessages = builder.userMessages == null ? null : Collections.unmodifiableList(new ArrayList<UserMessage>(builder.userMessages));
+        this.customClaims = builder.customClaims == null ? null : Collections.unmodifiableList(new ArrayList<CustomClaim>(builder.customClaims));
+        this.cardArt = builder.cardArt;
+
+        StringWriter out = new StringWriter();
+        JsonGenerator gen = FACTORY.createGenerator(out);
+        gen.writeStartObject();
+        // ids are required, so the fragments always follow a property and start with its separator
+        RegistrationSerializer.writeIds("", "", gen);
+        gen.flush();
+        int programStart = out.getBuffer().length();
+        RegistrationSerializer.writeProgram(membershipIdType, programName, gen);
+        gen.flush();
+        int contentStart = out.getBuffer().length();
+        RegistrationSerializer.writeContent(cardStatus, userMessages, customClaims, cardArt, gen);
+        gen.flush();
+        this.program = new SerializedString(out.getBuffer().substring(programStart, contentStart));
+        this.content = new SerializedString(out.getBuffer().substring(contentStart));
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * @param cardId       the card id
+     * @param membershipId the membership id
+     * @param barcode      the barcode, or null
+     * @param tracks       the tracks, or null
+     * @return registration with the shared properties of this template
+     */
+    public Registration newRegistration(String cardId, String membershipId, Barcode barcode, Tracks tracks) throws IllegalArgumentException {
+        return Registration.newBuilder()
+                .setCardId(cardId)
+                .setMembershipId(membershipId)
+                .setMembershipIDType(membershipIdType)
+                .setProgramName(programName)
+                .setBarcode(barcode)
+                .setTracks(tracks)
+                .setCardStatus(cardStatus)
+                .setUserMessages(userMessages)
+                .setCustomClaims(customClaims)
+                .setCardArt(cardArt)
+                .setTemplate(this)
+                .build();
+    }
+
+    void write(Registration value, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        RegistrationSerializer.writeIds(value.getCardId(), value.getMembershipId(), gen);
+        gen.writeRaw(program);
+        RegistrationSerializer.writeCardData(value.getBarcode(), value.getTracks(), gen);
+        gen.writeRaw(content);
+        gen.writeEndObject();
+    }
+
+    public static final class Builder {
+        private MembershipIDType membershipIdType;
+        private String programName;
+        private Registration.CardStatus cardStatus;
+        private List<UserMessage> userMessages;
+        private List<CustomClaim> customClaims;
+        private CardArt cardArt;
+
+        private Builder() {
+        }
+
+        public Builder setMembershipIDType(MembershipIDType membershipIdType) {
+            this.membershipIdType = membershipIdType;
+            return this;
+        }
+
+        public Builder setProgramName(String programName) {
+            this.programName = programName;
+            return this;
+        }
+
+        public Builder setCardStatus(Registration.CardStatus cardStatus) {
+            this.cardStatus = cardStatus;
+            return this;
+        }
+
+        public Builder setUserMessages(List<UserMessage> userMessages) {
+            this.userMessages = userMessages;
+            return this;
+        }
+
+        public Builder setCustomClaims(List<CustomClaim> customClaims) {
+            this.customClaims = customClaims;
+            return this;
+        }
+
+        public Builder setCardArt(CardArt cardArt) {
+            this.cardArt = cardArt;
+            return this;
+        }
+
+        /**
+         * Adds the violations of the properties, and those of the contained models, to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            result.requireNonNull(membershipIdType, "membershipIdType", "RegistrationTemplate membership ID type is missing");
+            result.requireNonEmpty(programName, "programName", "RegistrationTemplate programName is missing");
+            result.validate("userMessages", userMessages);
+            result.validate("customClaims", customClaims);
+            result.validate("cardArt", cardArt);
+            return result.size() == violations;
+        }
+
+        public RegistrationTemplate build() throws IllegalArgumentException, IOException {
+            validate(ValidationResult.failFast());
+            return new RegistrationTemplate(this);
+        }
+    }
+}
@@ -17,7 +17,16 @@
 
 package com.samsungpay.s2p.membership.model;
 
-public class Barcode {
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.samsungpay.s2p.common.model.Fingerprint;
+import com.samsungpay.s2p.common.model.Fingerprintable;
+import com.samsungpay.s2p.common.model.Validatable;
+import com.samsungpay.s2p.common.model.ValidationResult;
+
+import java.util.Objects;
+
+@JsonSerialize(using = ModelSerializers.BarcodeSerializer.class)
+public class Barcode implements Fingerprintable, Validatable {
     public enum Symbology {
         AZTEC,
         CODABAR,
@@ -56,6 +65,38 @@ public class Barcode {
         return data;
     }
 
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        hasher.putEnum(symbology);
+        hasher.putString(data);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        Barcode other = (Barcode) o;
+        return Objects.equals(symbology, other.symbology) &&
+                Objects.equals(data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(symbology, data);
+    }
+
+    @Override
+    public void validate(ValidationResult result) {
+        validate(result, symbology, data);
+    }
+
+    private static void validate(ValidationResult result, Symbology symbology, String data) {
+        result.requireNonNull(symbology, "symbology", "Barcode symbology is missing");
+        result.requireNonEmpty(data, "data", "Barcode data is missing");
+    }
+
     public static class Builder {
         private Symbology symbology;
         private String data;
@@ -73,12 +114,19 @@ public class Barcode {
             return this;
         }
 
-        public Barcode build() throws IllegalArgumentException {
-            if (symbology == null)
-                throw new IllegalArgumentException("Barcode symbology is missing");
+        /**
+         * Adds the violations of the properties to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            Barcode.validate(result, symbology, data);
+            return result.size() == violations;
+        }
 
-            if (data == null || data.isEmpty())
-                throw new IllegalArgumentException("Barcode data is missing");
+        public Barcode build() throws IllegalArgumentException {
+            validate(ValidationResult.failFast());
 
             Barcode barcode = new Barcode();
             barcode.symbology = this.symbology;
@@ -17,11 +17,17 @@
 
 package com.samsungpay.s2p.membership.model;
 
-import com.samsungpay.s2p.common.Util;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.samsungpay.s2p.common.model.Fingerprint;
+import com.samsungpay.s2p.common.model.Fingerprintable;
+import com.samsungpay.s2p.common.model.Validatable;
+import com.samsungpay.s2p.common.model.ValidationResult;
 
 import java.util.List;
+import java.util.Objects;
 
-public class CardArt {
+@JsonSerialize(using = ModelSerializers.CardArtSerializer.class)
+public class CardArt implements Fingerprintable, Validatable {
     private List<CardArtI18n> i18ns;
 
     private CardArt() {
@@ -35,6 +41,36 @@ public class CardArt {
         return new Builder();
     }
 
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        hasher.putList(i18ns);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        CardArt other = (CardArt) o;
+        return Objects.equals(i18ns, other.i18ns);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(i18ns);
+    }
+
+    @Override
+    public void validate(ValidationResult result) {
+        validate(result, i18ns);
+    }
+
+    private static void validate(ValidationResult result, List<CardArtI18n> i18ns) {
+        result.requireElements(i18ns, "i18ns", "CardArt i18ns is missing");
+        result.validate("i18ns", i18ns);
+    }
+
     public static class Builder {
         private List<CardArtI18n> i18ns;
 
@@ -46,9 +82,19 @@ public class CardArt {
             return this;
         }
 
+        /**
+         * Adds the violations of the properties, and those of the contained models, to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            CardArt.validate(result, i18ns);
+            return result.size() == violations;
+        }
+
         public CardArt build() throws IllegalArgumentException {
-            if (Util.containsNullValue(i18ns))
-                throw new IllegalArgumentException("CardArt i18ns is missing");
+            validate(ValidationResult.failFast());
             CardArt cardArt = new CardArt();
             cardArt.i18ns = i18ns;
             return cardArt;
@@ -18,9 +18,19 @@
 package com.samsungpay.s2p.membership.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.samsungpay.s2p.common.model.Fingerprint;
 import com.samsungpay.s2p.common.model.I18n;
+import com.samsungpay.s2p.common.model.Interner;
+import com.samsungpay.s2p.common.model.ValidationResult;
 
+import java.util.List;
+import java.util.Objects;
+
+@JsonSerialize(using = ModelSerializers.CardArtI18nSerializer.class)
 public class CardArtI18n extends I18n<CardArtI18n> {
+    private static final Interner<CardArtI18n> INTERNER = new Interner<CardArtI18n>();
+
     private String artUrl;
 
     private CardArtI18n(@JsonProperty("language") String language) {
@@ -31,10 +41,55 @@ public class CardArtI18n extends I18n<CardArtI18n> {
         return artUrl;
     }
 
+    /**
+     * @return the shared instance equal to the given one, see {@link Interner}
+     */
+    public static CardArtI18n intern(CardArtI18n i18n) {
+        return INTERNER.intern(i18n);
+    }
+
+    /**
+     * @return the shared list of shared instances equal to the given list, see {@link Interner}
+     */
+    public static List<CardArtI18n> internList(List<? extends CardArtI18n> i18ns) {
+        return INTERNER.internList(i18ns);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!super.equals(o))
+            return false;
+        CardArtI18n other = (CardArtI18n) o;
+        return Objects.equals(artUrl, other.artUrl);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = super.hashCode();
+        hash = 31 * hash + Objects.hashCode(artUrl);
+        return hash;
+    }
+
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        super.fingerprint(hasher);
+        hasher.putString(artUrl);
+    }
+
     public static Builder newBuilder() {
         return new Builder();
     }
 
+    @Override
+    public void validate(ValidationResult result) {
+        validate(result, artUrl, getLanguage());
+    }
+
+    private static void validate(ValidationResult result, String artUrl, String language) {
+        result.requireNonEmpty(artUrl, "artUrl", "CardArtI18n artUrl is missing");
+        validateLanguage(result, language);
+    }
+
     public static class Builder {
         private String language;
         private String artUrl;
@@ -52,12 +107,29 @@ public class CardArtI18n extends I18n<CardArtI18n> {
             return this;
         }
 
+        /**
+         * Adds the violations of the properties to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            CardArtI18n.validate(result, artUrl, language);
+            return result.size() == violations;
+        }
+
         public CardArtI18n build() throws IllegalArgumentException {
-            if (artUrl == null || artUrl.isEmpty())
-                throw new IllegalArgumentException("CardArtI18n artUrl is missing");
+            validate(ValidationResult.failFast());
             CardArtI18n i18n = new CardArtI18n(language);
             i18n.artUrl = artUrl;
             return i18n;
         }
+
+        /**
+         * @return the shared instance equal to {@link #build()}
+         */
+        public CardArtI18n buildInterned() throws IllegalArgumentException {
+            return intern(build());
+        }
     }
 }
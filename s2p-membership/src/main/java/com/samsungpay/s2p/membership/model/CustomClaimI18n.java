@@ -18,9 +18,19 @@
 package com.samsungpay.s2p.membership.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.samsungpay.s2p.common.model.Fingerprint;
 import com.samsungpay.s2p.common.model.I18n;
+import com.samsungpay.s2p.common.model.Interner;
+import com.samsungpay.s2p.common.model.ValidationResult;
 
+import java.util.List;
+import java.util.Objects;
+
+@JsonSerialize(using = ModelSerializers.CustomClaimI18nSerializer.class)
 public class CustomClaimI18n extends I18n<CustomClaimI18n> {
+    private static final Interner<CustomClaimI18n> INTERNER = new Interner<CustomClaimI18n>();
+
     private String label;
     private String content;
 
@@ -36,10 +46,59 @@ public class CustomClaimI18n extends I18n<CustomClaimI18n> {
         return content;
     }
 
+    /**
+     * @return the shared instance equal to the given one, see {@link Interner}
+     */
+    public static CustomClaimI18n intern(CustomClaimI18n i18n) {
+        return INTERNER.intern(i18n);
+    }
+
+    /**
+     * @return the shared list of shared instances equal to the given list, see {@link Interner}
+     */
+    public static List<CustomClaimI18n> internList(List<? extends CustomClaimI18n> i18ns) {
+        return INTERNER.internList(i18ns);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!super.equals(o))
+            return false;
+        CustomClaimI18n other = (CustomClaimI18n) o;
+        return Objects.equals(label, other.label) &&
+                Objects.equals(content, other.content);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = super.hashCode();
+        hash = 31 * hash + Objects.hashCode(label);
+        hash = 31 * hash + Objects.hashCode(content);
+        return hash;
+    }
+
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        super.fingerprint(hasher);
+        hasher.putString(label);
+        hasher.putString(content);
+    }
+
     public static Builder newBuilder() {
         return new Builder();
     }
 
+    @Override
+    public void validate(ValidationResult result) {
+        validate(result, label, content, getLanguage());
+    }
+
+    private static void validate(ValidationResult result, String label, String content, String language) {
+        result.requireNonNull(label, "label", "CustomClaim label is missing");
+        result.requireNonNull(content, "content", "CustomClaim content is missing");
+        validateLanguage(result, language);
+    }
+
     public static class Builder {
         private String language;
         private String label;
@@ -63,16 +122,31 @@ public class CustomClaimI18n extends I18n<CustomClaimI18n> {
             return this;
         }
 
+        /**
+         * Adds the violations of the properties to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            CustomClaimI18n.validate(result, label, content, language);
+            return result.size() == violations;
+        }
+
         public CustomClaimI18n build() throws IllegalArgumentException {
-            if (label == null)
-                throw new IllegalArgumentException("CustomClaim label is missing");
-            if (content == null)
-                throw new IllegalArgumentException("CustomClaim content is missing");
+            validate(ValidationResult.failFast());
 
             CustomClaimI18n i18n = new CustomClaimI18n(language);
             i18n.label = label;
             i18n.content = content;
             return i18n;
         }
+
+        /**
+         * @return the shared instance equal to {@link #build()}
+         */
+        public CustomClaimI18n buildInterned() throws IllegalArgumentException {
+            return intern(build());
+        }
     }
 }
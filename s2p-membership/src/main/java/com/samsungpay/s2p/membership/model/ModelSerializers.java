@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.membership.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.samsungpay.s2p.common.StreamingSerializer;
+
+import java.io.IOException;
+
+/**
+ * Reflection-free serializers of the membership models.
+ * <p>
+ * Property order and null handling follow the field based mapper: declared field order with the I18n
+ * {@code language} first, and null values written out.
+ */
+public final class ModelSerializers {
+    private static final SerializedString SYMBOLOGY = new SerializedString("symbology");
+    private static final SerializedString DATA = new SerializedString("data");
+    private static final SerializedString TRACK1 = new SerializedString("track1");
+    private static final SerializedString TRACK2 = new SerializedString("track2");
+    private static final SerializedString TRACK3 = new SerializedString("track3");
+    private static final SerializedString I18NS = new SerializedString("i18ns");
+    private static final SerializedString LANGUAGE = new SerializedString("language");
+    private static final SerializedString ART_URL = new SerializedString("artUrl");
+    private static final SerializedString LABEL = new SerializedString("label");
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString START_AT = new SerializedString("startAt");
+    private static final SerializedString END_AT = new SerializedString("endAt");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString BODY = new SerializedString("body");
+
+    public static final BarcodeSerializer BARCODE = new BarcodeSerializer();
+    public static final TracksSerializer TRACKS = new TracksSerializer();
+    public static final CardArtI18nSerializer CARD_ART_I18N = new CardArtI18nSerializer();
+    public static final CardArtSerializer CARD_ART = new CardArtSerializer();
+    public static final CustomClaimI18nSerializer CUSTOM_CLAIM_I18N = new CustomClaimI18nSerializer();
+    public static final CustomClaimSerializer CUSTOM_CLAIM = new CustomClaimSerializer();
+    public static final UserMessageI18nSerializer USER_MESSAGE_I18N = new UserMessageI18nSerializer();
+    public static final UserMessageSerializer USER_MESSAGE = new UserMessageSerializer();
+
+    private ModelSerializers() {
+    }
+
+    public static class BarcodeSerializer extends StreamingSerializer<Barcode> {
+        private static final long serialVersionUID = 1L;
+
+        public BarcodeSerializer() {
+            super(Barcode.class);
+        }
+
+        @Override
+        public void write(Barcode value, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            writeEnumField(gen, SYMBOLOGY, value.getSymbology());
+            writeStringField(gen, DATA, value.getData());
+            gen.writeEndObject();
+        }
+    }
+
+    public static class TracksSerializer extends StreamingSerializer<Tracks> {
+        private static final long serialVersionUID = 1L;
+
+        public TracksSerializer() {
+            super(Tracks.class);
+        }
+
+        @Override
+        public void write(Tracks value, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            writeStringField(gen, TRACK1, value.getTrack1());
+            writeStringField(gen, TRACK2, value.getTrack2());
+            writeStringField(gen, TRACK3, value.getTrack3());
+            gen.writeEndObject();
+        }
+    }
+
+    public static class CardArtI18nSerializer extends StreamingSerializer<CardArtI18n> {
+        private static final long serialVersionUID = 1L;
+
+        public CardArtI18nSerializer() {
+            super(CardArtI18n.class);
+        }
+
+        @Override
+        public void write(CardArtI18n value, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            writeStringField(gen, LANGUAGE, value.getLanguage());
+            writeStringField(gen, ART_URL, value.getArtUrl());
+            gen.writeEndObject();
+        }
+    }
+
+    public static class CardArtSerializer extends StreamingSerializer<CardArt> {
+        private static final long serialVersionUID = 1L;
+
+        public CardArtSerializer() {
+            super(CardArt.class);
+        }
+
+        @Override
+        public void write(CardArt value, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(I18NS);
+            CARD_ART_I18N.writeList(value.getI18ns(), gen);
+            gen.writeEndObject();
+        }
+    }
+
+    public static class CustomClaimI18nSerializer extends StreamingSerializer<CustomClaimI18n> {
+        private static final long serialVersionUID = 1L;
+
+        public CustomClaimI18nSerializer() {
+            super(CustomClaimI18n.class);
+        }
+
+        @Override
+        public void write(CustomClaimI18n value, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            writeStringField(gen, LANGUAGE, value.getLanguage());
+            writeStringField(gen, LABEL, value.getLabel());
+            writeStringField(gen, CONTENT, value.getContent());
+            gen.writeEndObject();
+        }
+    }
+
+    public static class CustomClaimSerializer extends StreamingSerializer<CustomClaim> {
+        private static final long serialVersionUID = 1L;
+
+        public CustomClaimSerializer() {
+            super(CustomClaim.class);
+        }
+
+        @Override
+        public void write(CustomClaim value, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(I18NS);
+            CUSTOM_CLAIM_I18N.writeList(value.getI18ns(), gen);
+            gen.writeEndObject();
+        }
+    }
+
+    public static class UserMessageI18nSerializer extends StreamingSerializer<UserMessageI18n> {
+        private static final long serialVersionUID = 1L;
+
+        public UserMessageI18nSerializer() {
+            super(UserMessageI18n.class);
+        }
+
+        @Override
+        public void write(UserMessageI18n value, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            writeStringField(gen, LANGUAGE, value.getLanguage());
+            writeStringField(gen, TITLE, value.getTitle());
+            writeStringField(gen, BODY, value.getBody());
+            gen.writeEndObject();
+        }
+    }
+
+    public static class UserMessageSerializer extends StreamingSerializer<UserMessage> {
+        private static final long serialVersionUID = 1L;
+
+        public UserMessageSerializer() {
+            super(UserMessage.class);
+        }
+
+        @Override
+        public void write(UserMessage value, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            writeStringField(gen, START_AT, value.getStartAt());
+            writeStringField(gen, END_AT, value.getEndAt());
+            gen.writeFieldName(I18NS);
+            USER_MESSAGE_I18N.writeList(value.getI18ns(), gen);
+            gen.writeEndObject();
+        }
+    }
+}
@@ -17,7 +17,16 @@
 
 package com.samsungpay.s2p.membership.model;
 
-public class Tracks {
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.samsungpay.s2p.common.model.Fingerprint;
+import com.samsungpay.s2p.common.model.Fingerprintable;
+import com.samsungpay.s2p.common.model.Validatable;
+import com.samsungpay.s2p.common.model.ValidationResult;
+
+import java.util.Objects;
+
+@JsonSerialize(using = ModelSerializers.TracksSerializer.class)
+public class Tracks implements Fingerprintable, Validatable {
     private String track1;
     private String track2;
     private String track3;
@@ -41,6 +50,39 @@ public class Tracks {
         return new Builder();
     }
 
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        hasher.putString(track1);
+        hasher.putString(track2);
+        hasher.putString(track3);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        Tracks other = (Tracks) o;
+        return Objects.equals(track1, other.track1) &&
+                Objects.equals(track2, other.track2) &&
+                Objects.equals(track3, other.track3);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(track1, track2, track3);
+    }
+
+    @Override
+    public void validate(ValidationResult result) {
+        validate(result, track1, track2, track3);
+    }
+
+    private static void validate(ValidationResult result, String track1, String track2, String track3) {
+        result.requireOneOf(track1, track2, track3, "Track (track1, track2, track3) is missing");
+    }
+
     public static class Builder {
         private String track1;
         private String track2;
@@ -64,11 +106,19 @@ public class Tracks {
             return this;
         }
 
+        /**
+         * Adds the violations of the properties to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            Tracks.validate(result, track1, track2, track3);
+            return result.size() == violations;
+        }
+
         public Tracks build() throws IllegalArgumentException {
-            if ((track1 == null || track1.isEmpty())
-                    && (track2 == null || track2.isEmpty())
-                    && (track3 == null || track3.isEmpty()))
-                throw new IllegalArgumentException("Track (track1, track2, track3) is missing");
+            validate(ValidationResult.failFast());
 
             Tracks tracks = new Tracks();
             tracks.track1 = this.track1;
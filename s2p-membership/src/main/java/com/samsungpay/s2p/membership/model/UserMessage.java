@@ -17,11 +17,17 @@
 
 package com.samsungpay.s2p.membership.model;
 
-import com.samsungpay.s2p.common.Util;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.samsungpay.s2p.common.model.Fingerprint;
+import com.samsungpay.s2p.common.model.Fingerprintable;
+import com.samsungpay.s2p.common.model.Validatable;
+import com.samsungpay.s2p.common.model.ValidationResult;
 
 import java.util.List;
+import java.util.Objects;
 
-public class UserMessage {
+@JsonSerialize(using = ModelSerializers.UserMessageSerializer.class)
+public class UserMessage implements Fingerprintable, Validatable {
     private String startAt;
     private String endAt;
     private List<UserMessageI18n> i18ns;
@@ -39,6 +45,40 @@ public class UserMessage {
         return new Builder();
     }
 
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        hasher.putString(startAt);
+        hasher.putString(endAt);
+        hasher.putList(i18ns);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        UserMessage other = (UserMessage) o;
+        return Objects.equals(startAt, other.startAt) &&
+                Objects.equals(endAt, other.endAt) &&
+                Objects.equals(i18ns, other.i18ns);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(startAt, endAt, i18ns);
+    }
+
+    @Override
+    public void validate(ValidationResult result) {
+        validate(result, i18ns);
+    }
+
+    private static void validate(ValidationResult result, List<UserMessageI18n> i18ns) {
+        result.requireElements(i18ns, "i18ns", "UserMessage i18ns is missing");
+        result.validate("i18ns", i18ns);
+    }
+
     public static class Builder {
         private String startAt;
         private String endAt;
@@ -62,9 +102,19 @@ public class UserMessage {
             return this;
         }
 
+        /**
+         * Adds the violations of the properties, and those of the contained models, to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            UserMessage.validate(result, i18ns);
+            return result.size() == violations;
+        }
+
         public UserMessage build() throws IllegalArgumentException {
-            if (Util.containsNullValue(i18ns))
-                throw new IllegalArgumentException("UserMessage i18ns is missing");
+            validate(ValidationResult.failFast());
             UserMessage userMessage = new UserMessage();
             userMessage.startAt = startAt;
             userMessage.endAt = endAt;
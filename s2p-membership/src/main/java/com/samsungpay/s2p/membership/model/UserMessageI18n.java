@@ -18,9 +18,19 @@
 package com.samsungpay.s2p.membership.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.samsungpay.s2p.common.model.Fingerprint;
 import com.samsungpay.s2p.common.model.I18n;
+import com.samsungpay.s2p.common.model.Interner;
+import com.samsungpay.s2p.common.model.ValidationResult;
 
+import java.util.List;
+import java.util.Objects;
+
+@JsonSerialize(using = ModelSerializers.UserMessageI18nSerializer.class)
 public class UserMessageI18n extends I18n<UserMessageI18n> {
+    private static final Interner<UserMessageI18n> INTERNER = new Interner<UserMessageI18n>();
+
     private String title;
     private String body;
 
@@ -36,6 +46,44 @@ public class UserMessageI18n extends I18n<UserMessageI18n> {
         return body;
     }
 
+    /**
+     * @return the shared instance equal to the given one, see {@link Interner}
+     */
+    public static UserMessageI18n intern(UserMessageI18n i18n) {
+        return INTERNER.intern(i18n);
+    }
+
+    /**
+     * @return the shared list of shared instances equal to the given list, see {@link Interner}
+     */
+    public static List<UserMessageI18n> internList(List<? extends UserMessageI18n> i18ns) {
+        return INTERNER.internList(i18ns);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!super.equals(o))
+            return false;
+        UserMessageI18n other = (UserMessageI18n) o;
+        return Objects.equals(title, other.title) &&
+                Objects.equals(body, other.body);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = super.hashCode();
+        hash = 31 * hash + Objects.hashCode(title);
+        hash = 31 * hash + Objects.hashCode(body);
+        return hash;
+    }
+
+    @Override
+    public void fingerprint(Fingerprint.Hasher hasher) {
+        super.fingerprint(hasher);
+        hasher.putString(title);
+        hasher.putString(body);
+    }
+
     public static Builder newBuilder() {
         return new Builder();
     }
@@ -63,11 +111,29 @@ public class UserMessageI18n extends I18n<UserMessageI18n> {
             return this;
         }
 
+        /**
+         * Adds the violations of the properties to the result.
+         *
+         * @return true if no violation was added
+         */
+        public boolean validate(ValidationResult result) {
+            int violations = result.size();
+            validateLanguage(result, language);
+            return result.size() == violations;
+        }
+
         public UserMessageI18n build() throws IllegalArgumentException {
             UserMessageI18n i18n = new UserMessageI18n(language);
             i18n.title = title;
             i18n.body = body;
             return i18n;
         }
+
+        /**
+         * @return the shared instance equal to {@link #build()}
+         */
+        public UserMessageI18n buildInterned() throws IllegalArgumentException {
+            return intern(build());
+        }
     }
 }
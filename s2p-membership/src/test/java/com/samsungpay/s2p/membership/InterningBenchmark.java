@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.membership;
+
+import com.samsungpay.s2p.membership.model.CardArt;
+import com.samsungpay.s2p.membership.model.CardArtI18n;
+import com.samsungpay.s2p.membership.model.CustomClaim;
+import com.samsungpay.s2p.membership.model.CustomClaimI18n;
+import com.samsungpay.s2p.membership.model.MembershipIDType;
+import com.samsungpay.s2p.membership.model.UserMessage;
+import com.samsungpay.s2p.membership.model.UserMessageI18n;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures the heap retained by a batch of registrations whose i18n values are parsed afresh for every card,
+ * with and without interning.
+ * <p>
+ * Run with {@code java -Xmx4g -cp <test classpath> com.samsungpay.s2p.membership.InterningBenchmark [registrations]}.
+ */
+public class InterningBenchmark {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        long fresh = retainedBytes(count, false);
+        long interned = retainedBytes(count, true);
+        System.out.println(String.format("%d registrations: fresh %d MB, interned %d MB, saved %.1f%%",
+                count, fresh >> 20, interned >> 20, 100.0 * (fresh - interned) / fresh));
+    }
+
+    private static long retainedBytes(int count, boolean intern) {
+        long before = usedHeap();
+        Registration[] batch = new Registration[count];
+        for (int i = 0; i < count; i++)
+            batch[i] = registration(i, intern);
+        long after = usedHeap();
+        // keep the batch reachable until measured
+        if (batch[count - 1] == null)
+            throw new IllegalStateException();
+        return after - before;
+    }
+
+    private static Registration registration(int i, boolean intern) {
+        // copies, as a parser would produce them for every record
+        CardArtI18n art = CardArtI18n.newBuilder().setLanguage(copy("en")).setArtUrl(copy("https://cdn.example.com/campaign/card-art.png")).build();
+        CustomClaimI18n claimEn = CustomClaimI18n.newBuilder().setLanguage(copy("en")).setLabel(copy("Tier")).setContent(copy("Gold member")).build();
+        CustomClaimI18n claimKo = CustomClaimI18n.newBuilder().setLanguage(copy("ko")).setLabel(copy("등급")).setContent(copy("골드 회원")).build();
+        UserMessageI18n message = UserMessageI18n.newBuilder().setLanguage(copy("en")).setTitle(copy("Welcome")).setBody(copy("Thanks for joining the program")).build();
+
+        List<CardArtI18n> arts = Collections.singletonList(art);
+        List<CustomClaimI18n> claims = Arrays.asList(claimEn, claimKo);
+        List<UserMessageI18n> messages = Collections.singletonList(message);
+        if (intern) {
+            arts = CardArtI18n.internList(arts);
+            claims = CustomClaimI18n.internList(claims);
+            messages = UserMessageI18n.internList(messages);
+        }
+
+        return Registration.newBuilder()
+                .setCardId("card" + i)
+                .setMembershipId("member" + i)
+                .setMembershipIDType(MembershipIDType.CARDNUM)
+                .setProgramName("program")
+                .setCardArt(CardArt.newBuilder().setI18ns(arts).build())
+                .setCustomClaims(Collections.singletonList(CustomClaim.newBuilder().setI18ns(claims).build()))
+                .setUserMessages(Collections.singletonList(UserMessage.newBuilder().setI18ns(messages).build()))
+                .build();
+    }
+
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
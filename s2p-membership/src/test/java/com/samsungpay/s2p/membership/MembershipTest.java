@@ -18,20 +18,34 @@
 package com.samsungpay.s2p.membership;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.samsungpay.s2p.common.AbstractRegistration;
 import com.samsungpay.s2p.common.S2PRequest;
 import com.samsungpay.s2p.common.Util;
+import com.samsungpay.s2p.common.model.Fingerprint;
+import com.samsungpay.s2p.common.model.ValidationResult;
 import com.samsungpay.s2p.membership.model.*;
+import org.apache.commons.codec.binary.Base64;
 import org.junit.*;
 import org.junit.rules.ExpectedException;
 
+import java.io.BufferedReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.security.*;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.spec.InvalidKeySpecException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertNotNull;
@@ -39,6 +53,8 @@ import static org.junit.Assert.assertThat;
 
 public class MembershipTest {
     private static final String PRIVATE_KEY_PEM_PATH = "src/test/resources/secret/dummyKey.pem";
+    private static final String GOLDEN_CORPUS_PATH = "src/test/resources/golden/registrations.json";
+    private static final String FINGERPRINT_OF_CONSTRUCTED_REGISTRATION = "4acd2240a14e1dcd75c7ae30f4bf919f";
     private static RSAPrivateKey PRIVATE_KEY;
 
     @Before
@@ -246,6 +262,222 @@ public class MembershipTest {
         Assert.assertEquals(track3, registration.getTracks().getTrack3());
     }
 
+    @Test
+    public void verifyToJsonMatchesObjectMapper() throws IOException {
+        Registration registration = constructRegistrationObject();
+        String expected = reflectiveObjectMapper().writeValueAsString(registration);
+
+        Assert.assertEquals(expected, registration.toJson());
+        Assert.assertEquals(expected, registration.readJson(expected, Registration.class).toJson());
+    }
+
+    @Test
+    public void verifySignedRequestCarriesHashedRegistration() throws IOException, NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        Registration registration = constructRegistrationObject();
+        S2PRequest req = S2PRequest.newBuilder()
+                .setKeyID("kid")
+                .setRegistration(registration)
+                .setRequest(S2PRequest.Request.SAVE_TO_SPAY_MEMBERSHIP)
+                .sign(PRIVATE_KEY);
+
+        String json = registration.toJson();
+        String payload = new String(Base64.decodeBase64(req.getJwt().split("\\.")[1]), "UTF-8");
+        Assert.assertEquals(json, req.getReg());
+        Assert.assertTrue(payload.contains(S2PRequest.Request.SAVE_TO_SPAY_MEMBERSHIP.getEncodedRequestHash(json)));
+    }
+
+    @Test
+    public void verifyStreamingSerializerMatchesGoldenCorpus() throws IOException {
+        List<String> golden = readLines(GOLDEN_CORPUS_PATH);
+        List<Registration> corpus = goldenCorpus();
+
+        Assert.assertEquals(golden.size(), corpus.size());
+        for (int i = 0; i < corpus.size(); i++) {
+            Assert.assertEquals("corpus entry " + i, golden.get(i), corpus.get(i).toJson());
+            Assert.assertArrayEquals("corpus entry " + i, golden.get(i).getBytes("UTF-8"), corpus.get(i).toJsonBytes());
+        }
+    }
+
+    @Test
+    public void verifyTemplateRegistrationsMatchGoldenCorpus() throws IOException {
+        List<String> golden = readLines(GOLDEN_CORPUS_PATH);
+        List<Registration> corpus = goldenCorpus();
+
+        for (int i = 0; i < corpus.size(); i++) {
+            Registration entry = corpus.get(i);
+            RegistrationTemplate template = RegistrationTemplate.newBuilder()
+                    .setMembershipIDType(entry.getMembershipIdType())
+                    .setProgramName(entry.getProgramName())
+                    .setCardStatus(entry.getCardStatus())
+                    .setUserMessages(entry.getUserMessages())
+                    .setCustomClaims(entry.getCustomClaims())
+                    .setCardArt(entry.getCardArt())
+                    .build();
+            Registration registration = template.newRegistration(entry.getCardId(), entry.getMembershipId(), entry.getBarcode(), entry.getTracks());
+
+            Assert.assertEquals("corpus entry " + i, golden.get(i), registration.toJson());
+            Assert.assertArrayEquals("corpus entry " + i, golden.get(i).getBytes("UTF-8"), registration.toJsonBytes());
+            Assert.assertEquals("corpus entry " + i, golden.get(i), registration.readJson(registration.toJson(), Registration.class).toJson());
+        }
+    }
+
+    @Test
+    public void verifyTemplateRegistrationsVaryCardData() throws IOException {
+        Registration shared = constructRegistrationObject();
+        RegistrationTemplate template = RegistrationTemplate.newBuilder()
+                .setMembershipIDType(shared.getMembershipIdType())
+                .setProgramName(shared.getProgramName())
+                .setCardStatus(shared.getCardStatus())
+                .setUserMessages(shared.getUserMessages())
+                .setCustomClaims(shared.getCustomClaims())
+                .setCardArt(shared.getCardArt())
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            Barcode barcode = i == 1 ? null : Barcode.newBuilder().setSymbology(Barcode.Symbology.QR_CODE).setData("qr \"" + i).build();
+            Tracks tracks = i == 2 ? null : Tracks.newBuilder().setTrack1("track " + i).build();
+            Registration expected = Registration.newBuilder()
+                    .setCardId("card " + i)
+                    .setMembershipId("member " + i)
+                    .setMembershipIDType(shared.getMembershipIdType())
+                    .setProgramName(shared.getProgramName())
+                    .setBarcode(barcode)
+                    .setTracks(tracks)
+                    .setCardStatus(shared.getCardStatus())
+                    .setUserMessages(shared.getUserMessages())
+                    .setCustomClaims(shared.getCustomClaims())
+                    .setCardArt(shared.getCardArt())
+                    .build();
+
+            Assert.assertEquals(expected.toJson(), template.newRegistration("card " + i, "member " + i, barcode, tracks).toJson());
+        }
+    }
+
+    @Test
+    public void verifyI18nInterning() throws IOException {
+        CardArtI18n art = CardArtI18n.newBuilder().setLanguage("en").setArtUrl("https://art").buildInterned();
+        Assert.assertSame(art, CardArtI18n.newBuilder().setLanguage("en").setArtUrl("https://art").buildInterned());
+        Assert.assertNotSame(art, CardArtI18n.newBuilder().setLanguage("ko").setArtUrl("https://art").buildInterned());
+        Assert.assertSame(
+                UserMessageI18n.newBuilder().setLanguage("en").setTitle("title").buildInterned(),
+                UserMessageI18n.newBuilder().setLanguage("en").setTitle("title").buildInterned());
+        Assert.assertNotSame(
+                UserMessageI18n.newBuilder().setLanguage("en").setTitle("title").buildInterned(),
+                UserMessageI18n.newBuilder().setLanguage("en").setBody("title").buildInterned());
+
+        List<CustomClaimI18n> claims = CustomClaimI18n.internList(Arrays.asList(
+                CustomClaimI18n.newBuilder().setLanguage("en").setLabel("label").setContent("content").build(),
+                CustomClaimI18n.newBuilder().setLanguage("ko").setLabel("label").setContent("content").build()));
+        List<CustomClaimI18n> same = CustomClaimI18n.internList(Arrays.asList(
+                CustomClaimI18n.newBuilder().setLanguage("en").setLabel("label").setContent("content").build(),
+                CustomClaimI18n.newBuilder().setLanguage("ko").setLabel("label").setContent("content").build()));
+        Assert.assertSame(claims, same);
+        Assert.assertSame(claims.get(0), CustomClaimI18n.intern(CustomClaimI18n.newBuilder().setLanguage("en").setLabel("label").setContent("content").build()));
+        Assert.assertNull(CustomClaimI18n.internList(null));
+
+        // interned values serialize like fresh ones
+        Registration registration = constructRegistrationObject();
+        Registration interned = Registration.newBuilder()
+                .setCardId(registration.getCardId())
+                .setMembershipId(registration.getMembershipId())
+                .setMembershipIDType(registration.getMembershipIdType())
+                .setProgramName(registration.getProgramName())
+                .setBarcode(registration.getBarcode())
+                .setTracks(registration.getTracks())
+                .setCardStatus(registration.getCardStatus())
+                .setUserMessages(registration.getUserMessages())
+                .setCustomClaims(registration.getCustomClaims())
+                .setCardArt(registration.getCardArt() == null ? null : CardArt.newBuilder()
+                        .setI18ns(CardArtI18n.internList(registration.getCardArt().getI18ns()))
+                        .build())
+                .build();
+        Assert.assertEquals(registration.toJson(), interned.toJson());
+    }
+
+    @Test
+    public void verifyFingerprintFollowsContent() throws IOException {
+        List<Registration> corpus = goldenCorpus();
+        List<Registration> copies = goldenCorpus();
+        Set<Fingerprint> fingerprints = new HashSet<Fingerprint>();
+
+        for (int i = 0; i < corpus.size(); i++) {
+            Registration registration = corpus.get(i);
+            Registration parsed = registration.readJson(registration.toJson(), Registration.class);
+            Assert.assertEquals("corpus entry " + i, registration, copies.get(i));
+            Assert.assertEquals("corpus entry " + i, registration, parsed);
+            Assert.assertEquals("corpus entry " + i, registration.hashCode(), parsed.hashCode());
+            Assert.assertEquals("corpus entry " + i, registration.getFingerprint(), parsed.getFingerprint());
+            Assert.assertTrue("corpus entry " + i, fingerprints.add(registration.getFingerprint()));
+        }
+
+        Registration registration = constructRegistrationObject();
+        Registration changed = Registration.newBuilder()
+                .setCardId(registration.getCardId())
+                .setMembershipId(registration.getMembershipId())
+                .setMembershipIDType(registration.getMembershipIdType())
+                .setProgramName(registration.getProgramName())
+                .setBarcode(Barcode.newBuilder().setSymbology(Barcode.Symbology.CODE_39).setData("1234567891").build())
+                .setTracks(registration.getTracks())
+                .setCardStatus(registration.getCardStatus())
+                .setUserMessages(registration.getUserMessages())
+                .setCustomClaims(registration.getCustomClaims())
+                .setCardArt(registration.getCardArt())
+                .build();
+        Assert.assertNotEquals(registration, changed);
+        Assert.assertNotEquals(registration.getFingerprint(), changed.getFingerprint());
+
+        // persisted fingerprints must stay valid across releases
+        Assert.assertEquals(FINGERPRINT_OF_CONSTRUCTED_REGISTRATION, registration.getFingerprint().toString());
+    }
+
+    @Test
+    public void verifyValidateCollectsAllViolations() throws IOException {
+        Registration registration = constructRegistrationObject();
+        String json = registration.toJson();
+        Assert.assertTrue(json.contains("\"artUrl\":\"123\""));
+        Registration parsed = registration.readJson(json.replace("\"artUrl\":\"123\"", "\"artUrl\":null"), Registration.class);
+
+        Registration.Builder builder = Registration.newBuilder()
+                .setMembershipId(registration.getMembershipId())
+                .setMembershipIDType(registration.getMembershipIdType())
+                .setBarcode(registration.getBarcode())
+                .setCardArt(parsed.getCardArt());
+        ValidationResult result = new ValidationResult();
+        Assert.assertFalse(builder.validate(result));
+        Assert.assertEquals(3, result.size());
+        Assert.assertEquals("cardId", result.getPath(0));
+        Assert.assertEquals(ValidationResult.Code.MISSING, result.getCode(0));
+        Assert.assertEquals("programName", result.getPath(1));
+        Assert.assertEquals("Registration programName is missing", result.getMessage(1));
+        Assert.assertEquals("cardArt.i18ns[0].artUrl", result.getPath(2));
+        Assert.assertEquals("CardArtI18n artUrl is missing", result.getMessage(2));
+
+        // build() still reports the first violation of the registration itself
+        try {
+            builder.build();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Registration card ID is missing", e.getMessage());
+        }
+        // the shared fail-fast result keeps nothing, and does not walk the contained models checked by their builders
+        Assert.assertTrue(ValidationResult.failFast().isValid());
+        Assert.assertSame(parsed.getCardArt(), builder.setCardId("1").setProgramName("program").build().getCardArt());
+        Assert.assertTrue(ValidationResult.failFast().isValid());
+
+        result.clear();
+        Assert.assertTrue(result.isValid());
+        registration.validate(result);
+        Assert.assertTrue(result.isValid());
+        parsed.validate(result);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals("cardArt.i18ns[0].artUrl", result.getPath(0));
+
+        CustomClaimI18n i18n = registration.getCustomClaims().get(0).getI18ns().get(0);
+        Assert.assertFalse(CustomClaim.newBuilder().setI18ns(Arrays.asList(i18n, null)).validate(result.clear()));
+        Assert.assertEquals("i18ns[1]", result.getPath(0));
+        Assert.assertEquals(ValidationResult.Code.NULL_ELEMENT, result.getCode(0));
+    }
+
     @Test
     public void testRS256JWTCreateAndSign() throws NoSuchAlgorithmException, InvalidKeyException, SignatureException, ParseException, IOException, InvalidKeySpecException, NoSuchProviderException {
         // Upon successful registration, each merchant will obtain a keyId and appId of registered service
@@ -265,6 +497,107 @@ public class MembershipTest {
                 .sign();
     }
 
+    private List<Registration> goldenCorpus() {
+        final String escaped = "quote \" backslash \\ slash / tab\t newline\n control\u0001 caf\u00e9 \u2028 \ud83d\ude00 <script>&'";
+        List<Registration> corpus = new ArrayList<Registration>();
+
+        corpus.add(Registration.newBuilder()
+                .setCardId("1")
+                .setMembershipId("2")
+                .setMembershipIDType(MembershipIDType.CARDNUM)
+                .setProgramName("program")
+                .build());
+
+        corpus.add(constructRegistrationObject());
+
+        MembershipIDType[] idTypes = MembershipIDType.values();
+        Registration.CardStatus[] statuses = Registration.CardStatus.values();
+        Barcode.Symbology[] symbologies = Barcode.Symbology.values();
+        for (int i = 0; i < symbologies.length; i++) {
+            corpus.add(Registration.newBuilder()
+                    .setCardId("card" + i)
+                    .setMembershipId("member" + i)
+                    .setMembershipIDType(idTypes[i % idTypes.length])
+                    .setProgramName("program" + i)
+                    .setBarcode(Barcode.newBuilder()
+                            .setSymbology(symbologies[i])
+                            .setData("data" + i)
+                            .build())
+                    .setTracks(Tracks.newBuilder()
+                            .setTrack3("track3_" + i)
+                            .build())
+                    .setCardStatus(statuses[i % statuses.length])
+                    .build());
+        }
+
+        corpus.add(Registration.newBuilder()
+                .setCardId(escaped)
+                .setMembershipId(escaped)
+                .setMembershipIDType(MembershipIDType.EMAIL)
+                .setProgramName(escaped)
+                .setBarcode(Barcode.newBuilder()
+                        .setSymbology(Barcode.Symbology.PDF_417)
+                        .setData(escaped)
+                        .build())
+                .setTracks(Tracks.newBuilder()
+                        .setTrack1(escaped)
+                        .setTrack2("")
+                        .build())
+                .setCardArt(CardArt.newBuilder()
+                        .setI18ns(Arrays.asList(
+                                CardArtI18n.newBuilder().setLanguage("en").setArtUrl(escaped).build(),
+                                CardArtI18n.newBuilder().setLanguage("ko").setArtUrl("\uce74\ub4dc").build()))
+                        .build())
+                .setCustomClaims(Arrays.asList(
+                        CustomClaim.newBuilder()
+                                .setI18ns(Collections.singletonList(CustomClaimI18n.newBuilder()
+                                        .setLanguage(escaped)
+                                        .setLabel(escaped)
+                                        .setContent("")
+                                        .build()))
+                                .build(),
+                        null))
+                .setUserMessages(Arrays.asList(
+                        UserMessage.newBuilder()
+                                .setStartAt("2017-05-19T16:38:07-07:00")
+                                .setI18ns(Collections.singletonList(UserMessageI18n.newBuilder()
+                                        .setLanguage("en")
+                                        .build()))
+                                .build(),
+                        UserMessage.newBuilder()
+                                .setEndAt(escaped)
+                                .setI18ns(Collections.<UserMessageI18n>emptyList())
+                                .build()))
+                .build());
+
+        corpus.add(Registration.newBuilder()
+                .setCardId("empty lists")
+                .setMembershipId("phone")
+                .setMembershipIDType(MembershipIDType.PHONE)
+                .setProgramName("program")
+                .setUserMessages(Collections.<UserMessage>emptyList())
+                .setCustomClaims(Collections.<CustomClaim>emptyList())
+                .setCardArt(CardArt.newBuilder()
+                        .setI18ns(Collections.<CardArtI18n>emptyList())
+                        .build())
+                .build());
+
+        return corpus;
+    }
+
+    private static List<String> readLines(String path) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path), "UTF-8"));
+        try {
+            List<String> lines = new ArrayList<String>();
+            String line;
+            while ((line = reader.readLine()) != null)
+                lines.add(line);
+            return lines;
+        } finally {
+            reader.close();
+        }
+    }
+
     private Registration constructRegistrationObject() {
         // Barcode
         Barcode barcode = Barcode.newBuilder()
@@ -339,4 +672,19 @@ public class MembershipTest {
                 .setUserMessages(Collections.singletonList(userMessage1))
                 .build();
     }
+
+    /**
+     * Field reflecting mapper that ignores {@code @JsonSerialize}, so toJson() is compared against the serialization
+     * the streaming serializers replaced rather than against themselves.
+     */
+    private static ObjectMapper reflectiveObjectMapper() {
+        ObjectMapper mapper = AbstractRegistration.newObjectMapper();
+        mapper.setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+            @Override
+            public Object findSerializer(Annotated annotated) {
+                return null;
+            }
+        });
+        return mapper;
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package com.samsungpay.s2p.membership;
+
+import com.samsungpay.s2p.common.model.ValidationResult;
+import com.samsungpay.s2p.membership.model.Barcode;
+import com.samsungpay.s2p.membership.model.CardArt;
+import com.samsungpay.s2p.membership.model.CardArtI18n;
+import com.samsungpay.s2p.membership.model.MembershipIDType;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+
+/**
+ * Compares {@link Registration.Builder#validate} with building and catching the exception on rows missing several
+ * properties, and reports the bytes allocated by validating and building valid rows.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.samsungpay.s2p.membership.ValidationBenchmark [rows]}.
+ */
+public class ValidationBenchmark {
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        Registration.Builder dirty = Registration.newBuilder()
+                .setMembershipIDType(MembershipIDType.CARDNUM)
+                .setBarcode(Barcode.newBuilder().setSymbology(Barcode.Symbology.CODE_39).setData("1234567890").build());
+        Registration.Builder valid = Registration.newBuilder()
+                .setCardId("1")
+                .setMembershipId("2")
+                .setMembershipIDType(MembershipIDType.CARDNUM)
+                .setProgramName("program")
+                .setBarcode(Barcode.newBuilder().setSymbology(Barcode.Symbology.CODE_39).setData("1234567890").build())
+                .setCardArt(CardArt.newBuilder()
+                        .setI18ns(Collections.singletonList(CardArtI18n.newBuilder().setLanguage("en").setArtUrl("art").build()))
+                        .build());
+        ValidationResult result = new ValidationResult();
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int failed = 0;
+            for (int i = 0; i < rows; i++) {
+                try {
+                    dirty.build();
+                } catch (IllegalArgumentException e) {
+                    failed++;
+                }
+            }
+            long build = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int violations = 0;
+            for (int i = 0; i < rows; i++) {
+                dirty.validate(result.clear());
+                violations += result.size();
+            }
+            long validate = System.nanoTime() - start;
+
+            System.out.println(String.format("dirty rows: build and catch %6.0f ns/row (%d failed), validate %6.0f ns/row (%d violations)",
+                    (double) build / rows, failed, (double) validate / rows, violations));
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < rows; i++)
+            valid.validate(result.clear());
+        long before = threads.getThreadAllocatedBytes(threadId);
+        boolean allValid = true;
+        for (int i = 0; i < rows; i++)
+            allValid &= valid.validate(result.clear());
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        System.out.println(String.format("valid rows: %.2f bytes allocated/row (all valid: %b)", (double) allocated / rows, allValid));
+
+        // a built registration is one object, the checks allocate nothing
+        for (int i = 0; i < rows; i++)
+            valid.build();
+        before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < rows; i++)
+            valid.build();
+        allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        System.out.println(String.format("valid rows: %.2f bytes allocated/build", (double) allocated / rows));
+    }
+}
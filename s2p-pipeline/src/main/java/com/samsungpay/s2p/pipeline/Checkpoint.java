@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Number of input records whose output is durably written, the input offset after them and the output length at
+ * that point. Checkpoints written before the input offset was recorded carry -1, their records are skipped by
+ * reading them again.
+ */
+final class Checkpoint {
+    private static final String RECORDS = "records";
+    private static final String INPUT_BYTES = "inputBytes";
+    private static final String OUTPUT_BYTES = "outputBytes";
+
+    final long records;
+    final long inputBytes;
+    final long outputBytes;
+
+    Checkpoint(long records, long inputBytes, long outputBytes) {
+        this.records = records;
+        this.inputBytes = inputBytes;
+        this.outputBytes = outputBytes;
+    }
+
+    static Checkpoint read(File file) throws IOException {
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        try {
+            return new Checkpoint(Long.parseLong(properties.getProperty(RECORDS)), Long.parseLong(properties.getProperty(INPUT_BYTES, "-1")),
+                    Long.parseLong(properties.getProperty(OUTPUT_BYTES)));
+        } catch (NumberFormatException e) {
+            throw new IOException("Checkpoint " + file + " is corrupt", e);
+        }
+    }
+
+    /**
+     * Writes a sibling file first and renames it, so that a crash leaves either the previous or the new checkpoint.
+     */
+    void write(File file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(RECORDS, Long.toString(records));
+        properties.setProperty(INPUT_BYTES, Long.toString(inputBytes));
+        properties.setProperty(OUTPUT_BYTES, Long.toString(outputBytes));
+
+        File temp = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+            properties.store(out, null);
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        // renaming over an existing file fails on some platforms
+        if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file)))
+            throw new IOException("Unable to write checkpoint " + file);
+    }
+}
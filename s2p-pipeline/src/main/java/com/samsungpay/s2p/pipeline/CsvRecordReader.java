@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class CsvRecordReader extends RecordReader {
+    private final Map<String, Integer> columns = new HashMap<String, Integer>();
+    private final StringBuilder field = new StringBuilder();
+
+    CsvRecordReader(InputReader in) throws IOException {
+        super(in);
+        List<String> header = readRow();
+        if (header == null)
+            throw new IOException("CSV header row is missing");
+        for (int i = 0; i < header.size(); i++)
+            columns.put(header.get(i).trim(), i);
+    }
+
+    @Override
+    protected Record read(long number) throws IOException {
+        List<String> row;
+        do {
+            row = readRow();
+        } while (row != null && row.size() == 1 && row.get(0).isEmpty());
+        return row == null ? null : new CsvRecord(number, columns, row.toArray(new String[row.size()]));
+    }
+
+    private List<String> readRow() throws IOException {
+        int c = in.read();
+        if (c < 0)
+            return null;
+
+        List<String> row = new ArrayList<String>();
+        boolean quoted = false;
+        field.setLength(0);
+        while (true) {
+            if (quoted) {
+                if (c < 0)
+                    throw new IOException("CSV quoted field is not terminated");
+                if (c == '"') {
+                    if (in.peek() == '"') {
+                        in.read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c < 0 || c == '\n') {
+                break;
+            } else if (c == '\r') {
+                if (in.peek() == '\n')
+                    in.read();
+                break;
+            } else if (c == ',') {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+        row.add(field.toString());
+        return row;
+    }
+
+    private static class CsvRecord implements Record {
+        private final long number;
+        private final Map<String, Integer> columns;
+        private final String[] values;
+
+        private CsvRecord(long number, Map<String, Integer> columns, String[] values) {
+            this.number = number;
+            this.columns = columns;
+            this.values = values;
+        }
+
+        @Override
+        public long getNumber() {
+            return number;
+        }
+
+        @Override
+        public String get(String field) {
+            Integer column = columns.get(field);
+            if (column == null || column >= values.length || values[column].isEmpty())
+                return null;
+            return values[column];
+        }
+    }
+}
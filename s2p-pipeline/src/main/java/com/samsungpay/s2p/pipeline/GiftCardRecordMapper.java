@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+import com.samsungpay.s2p.common.AbstractRegistration;
+import com.samsungpay.s2p.giftcard.Registration;
+import com.samsungpay.s2p.giftcard.model.Card;
+import com.samsungpay.s2p.giftcard.model.Merchant;
+import com.samsungpay.s2p.giftcard.model.Tnc;
+
+/**
+ * Maps flat records to gift card registrations.
+ * <p>
+ * Fields: {@code cardId}, {@code cardImageUrl}, {@code tncUrl}, {@code tncContent}, {@code merchantName} and
+ * {@code merchantLogoUrl}.
+ */
+public class GiftCardRecordMapper implements RegistrationMapper {
+    @Override
+    public AbstractRegistration map(Record record) throws IllegalArgumentException {
+        return Registration.newBuilder()
+                .card(Card.newBuilder()
+                        .id(record.get("cardId"))
+                        .imageUrl(record.get("cardImageUrl"))
+                        .tnc(Tnc.newBuilder()
+                                .url(record.get("tncUrl"))
+                                .content(record.get("tncContent"))
+                                .build())
+                        .build())
+                .merchant(Merchant.newBuilder()
+                        .name(record.get("merchantName"))
+                        .logoUrl(record.get("merchantLogoUrl"))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Buffered UTF-8 reader of the input file that tracks the byte offset of the next character, so that a resumed run
+ * seeks to the checkpointed record instead of reading and parsing every record before it.
+ * <p>
+ * Malformed input is reported rather than replaced, so the offset always matches the bytes actually consumed.
+ */
+final class InputReader implements Closeable {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final FileInputStream in;
+    private final char[] buffer;
+    private Reader decoder;
+    private int next;
+    private int end;
+    private long position;
+
+    InputReader(FileInputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new char[bufferSize];
+        this.decoder = newDecoder(in);
+    }
+
+    /**
+     * @return the next character, or -1 at the end of the input
+     */
+    int read() throws IOException {
+        if (next == end && !fill())
+            return -1;
+        char c = buffer[next++];
+        position += utf8Length(c);
+        return c;
+    }
+
+    /**
+     * @return the next character without consuming it, or -1 at the end of the input
+     */
+    int peek() throws IOException {
+        if (next == end && !fill())
+            return -1;
+        return buffer[next];
+    }
+
+    /**
+     * @return the next line without its {@code \n}, {@code \r\n} or {@code \r} terminator, or null at the end of the
+     * input
+     */
+    String readLine() throws IOException {
+        StringBuilder line = null;
+        while (true) {
+            if (next == end && !fill())
+                return line == null ? null : line.toString();
+            int start = next;
+            while (next < end && buffer[next] != '\n' && buffer[next] != '\r')
+                position += utf8Length(buffer[next++]);
+            if (next == end) {
+                if (line == null)
+                    line = new StringBuilder(Math.max(80, 2 * (end - start)));
+                line.append(buffer, start, end - start);
+                continue;
+            }
+            String result = line == null ? new String(buffer, start, next - start) : line.append(buffer, start, next - start).toString();
+            if (read() == '\r' && peek() == '\n')
+                read();
+            return result;
+        }
+    }
+
+    /**
+     * @return byte offset of the next character
+     */
+    long position() {
+        return position;
+    }
+
+    /**
+     * Continues reading at the given byte offset, which must be the offset of a character.
+     */
+    void seek(long position) throws IOException {
+        in.getChannel().position(position);
+        decoder = newDecoder(in);
+        next = 0;
+        end = 0;
+        this.position = position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        decoder.close();
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = decoder.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0)
+            return false;
+        next = 0;
+        end = read;
+        return true;
+    }
+
+    private static int utf8Length(char c) {
+        if (c < 0x80)
+            return 1;
+        // each half of a surrogate pair accounts for half of its 4 bytes
+        if (c < 0x800 || Character.isSurrogate(c))
+            return 2;
+        return 3;
+    }
+
+    private static Reader newDecoder(FileInputStream in) {
+        return new InputStreamReader(in, UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT));
+    }
+}
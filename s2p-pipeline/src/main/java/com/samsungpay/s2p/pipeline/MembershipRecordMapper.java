@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+import com.samsungpay.s2p.common.AbstractRegistration;
+import com.samsungpay.s2p.membership.Registration;
+import com.samsungpay.s2p.membership.model.Barcode;
+import com.samsungpay.s2p.membership.model.MembershipIDType;
+import com.samsungpay.s2p.membership.model.Tracks;
+
+/**
+ * Maps flat records to membership registrations.
+ * <p>
+ * Fields: {@code cardId}, {@code membershipId}, {@code membershipIdType}, {@code programName}, {@code cardStatus},
+ * {@code barcodeSymbology}, {@code barcodeData}, {@code track1}, {@code track2} and {@code track3}. Enumerated
+ * values are given by name.
+ */
+public class MembershipRecordMapper implements RegistrationMapper {
+    @Override
+    public AbstractRegistration map(Record record) throws IllegalArgumentException {
+        Registration.Builder builder = Registration.newBuilder()
+                .setCardId(record.get("cardId"))
+                .setMembershipId(record.get("membershipId"))
+                .setProgramName(record.get("programName"));
+
+        String membershipIdType = record.get("membershipIdType");
+        if (membershipIdType != null)
+            builder.setMembershipIDType(MembershipIDType.valueOf(membershipIdType));
+        String cardStatus = record.get("cardStatus");
+        if (cardStatus != null)
+            builder.setCardStatus(Registration.CardStatus.valueOf(cardStatus));
+
+        String symbology = record.get("barcodeSymbology");
+        String data = record.get("barcodeData");
+        if (symbology != null || data != null) {
+            builder.setBarcode(Barcode.newBuilder()
+                    .setSymbology(symbology == null ? null : Barcode.Symbology.valueOf(symbology))
+                    .setData(data)
+                    .build());
+        }
+
+        String track1 = record.get("track1");
+        String track2 = record.get("track2");
+        String track3 = record.get("track3");
+        if (track1 != null || track2 != null || track3 != null) {
+            builder.setTracks(Tracks.newBuilder()
+                    .setTrack1(track1)
+                    .setTrack2(track2)
+                    .setTrack3(track3)
+                    .build());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+
+class NdjsonRecordReader extends RecordReader {
+    private static final ObjectReader READER = new ObjectMapper().readerFor(JsonNode.class);
+
+    NdjsonRecordReader(InputReader in) {
+        super(in);
+    }
+
+    @Override
+    protected Record read(long number) throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+        } while (line != null && line.trim().isEmpty());
+        return line == null ? null : new NdjsonRecord(number, line);
+    }
+
+    /**
+     * Keeps the raw line, which is parsed on first access by the signing thread rather than the reading one.
+     */
+    private static class NdjsonRecord implements Record {
+        private final long number;
+        private final String line;
+        private JsonNode node;
+
+        private NdjsonRecord(long number, String line) {
+            this.number = number;
+            this.line = line;
+        }
+
+        @Override
+        public long getNumber() {
+            return number;
+        }
+
+        @Override
+        public String get(String field) {
+            if (node == null) {
+                try {
+                    node = READER.readValue(line);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Record " + number + " is not valid JSON: " + e.getMessage(), e);
+                }
+                if (!node.isObject())
+                    throw new IllegalArgumentException("Record " + number + " is not a JSON object");
+            }
+            JsonNode value = node.get(field);
+            if (value == null || value.isNull())
+                return null;
+            String text = value.isValueNode() ? value.asText() : value.toString();
+            return text.isEmpty() ? null : text;
+        }
+    }
+}
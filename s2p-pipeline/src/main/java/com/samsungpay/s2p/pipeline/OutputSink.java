@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Line oriented output file that can be cut back to any of its checkpoints.
+ * <p>
+ * Compressed output is written as a series of gzip members, one per checkpoint, so that the file truncated at a
+ * checkpoint is still a valid gzip stream. {@link java.util.zip.GZIPInputStream} reads the concatenated members
+ * as one stream.
+ */
+final class OutputSink {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileOutputStream file;
+    private final OutputStream buffered;
+    private final boolean gzip;
+    private GzipMember member;
+    private Writer writer;
+
+    /**
+     * @param target     the output file
+     * @param truncateTo length to cut an existing file back to before appending, or 0 to overwrite it
+     * @param gzip       whether to compress the output
+     */
+    OutputSink(File target, long truncateTo, boolean gzip) throws IOException {
+        if (truncateTo > 0) {
+            RandomAccessFile raf = new RandomAccessFile(target, "rw");
+            try {
+                if (raf.length() < truncateTo)
+                    throw new IOException("Output " + target + " is shorter than its checkpoint");
+                raf.setLength(truncateTo);
+            } finally {
+                raf.close();
+            }
+        }
+        this.file = new FileOutputStream(target, truncateTo > 0);
+        this.buffered = new BufferedOutputStream(file, BUFFER_SIZE);
+        this.gzip = gzip;
+        open();
+    }
+
+    void writeLine(String line) throws IOException {
+        writer.write(line);
+        writer.write('\n');
+    }
+
+    /**
+     * Makes everything written so far durable.
+     *
+     * @return length of the output file
+     */
+    long checkpoint() throws IOException {
+        writer.flush();
+        if (gzip)
+            member.end();
+        buffered.flush();
+        file.getFD().sync();
+        long length = file.getChannel().position();
+        if (gzip)
+            open();
+        return length;
+    }
+
+    void close() throws IOException {
+        writer.close();
+    }
+
+    private void open() throws IOException {
+        if (gzip) {
+            member = new GzipMember(buffered);
+            writer = new OutputStreamWriter(member, UTF_8);
+        } else {
+            writer = new OutputStreamWriter(buffered, UTF_8);
+        }
+    }
+
+    private static class GzipMember extends GZIPOutputStream {
+        private GzipMember(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+        }
+
+        /**
+         * Writes the trailer and releases the deflater without closing the underlying stream.
+         */
+        private void end() throws IOException {
+            finish();
+            def.end();
+        }
+    }
+}
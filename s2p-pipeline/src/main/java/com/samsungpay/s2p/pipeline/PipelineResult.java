@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+/**
+ * Counters of a completed pipeline run.
+ */
+public class PipelineResult {
+    private final long resumedFrom;
+    private final long signed;
+    private final long failed;
+
+    PipelineResult(long resumedFrom, long signed, long failed) {
+        this.resumedFrom = resumedFrom;
+        this.signed = signed;
+        this.failed = failed;
+    }
+
+    /**
+     * @return number of records skipped because a previous run had already written them
+     */
+    public long getResumedFrom() {
+        return resumedFrom;
+    }
+
+    /**
+     * @return number of records signed by this run
+     */
+    public long getSigned() {
+        return signed;
+    }
+
+    /**
+     * @return number of records of this run written as errors
+     */
+    public long getFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+/**
+ * One input record, with its fields addressed by name.
+ */
+public interface Record {
+    /**
+     * @return zero-based position of the record in the input
+     */
+    long getNumber();
+
+    /**
+     * @param field field name, the CSV column header or the NDJSON top-level property
+     * @return the field value, or null if absent or empty
+     */
+    String get(String field);
+}
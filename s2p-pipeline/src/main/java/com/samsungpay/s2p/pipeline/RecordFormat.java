@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+import java.io.IOException;
+
+/**
+ * Supported input formats.
+ */
+public enum RecordFormat {
+    /**
+     * One JSON object per line, blank lines are ignored.
+     */
+    NDJSON,
+
+    /**
+     * RFC 4180 comma separated values with a header row naming the fields.
+     */
+    CSV;
+
+    RecordReader newReader(InputReader in) throws IOException {
+        return this == CSV ? new CsvRecordReader(in) : new NdjsonRecordReader(in);
+    }
+}
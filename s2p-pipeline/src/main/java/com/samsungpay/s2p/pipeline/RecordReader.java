@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+abstract class RecordReader implements Closeable {
+    protected final InputReader in;
+    private long number;
+
+    RecordReader(InputReader in) {
+        this.in = in;
+    }
+
+    /**
+     * @return the next record, or null at the end of the input
+     */
+    Record next() throws IOException {
+        Record record = read(number);
+        if (record != null)
+            number++;
+        return record;
+    }
+
+    /**
+     * @param count number of records to pass over
+     * @return number of records actually skipped, less than count at the end of the input
+     */
+    long skip(long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count && next() != null)
+            skipped++;
+        return skipped;
+    }
+
+    /**
+     * @return byte offset in the input after the last record returned
+     */
+    long position() {
+        return in.position();
+    }
+
+    /**
+     * Continues after a record previously returned, without reading the records before it again.
+     *
+     * @param records  number of records before the byte offset
+     * @param position {@link #position()} after the last of those records
+     */
+    void seek(long records, long position) throws IOException {
+        in.seek(position);
+        number = records;
+    }
+
+    protected abstract Record read(long number) throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+import com.samsungpay.s2p.common.AbstractRegistration;
+
+/**
+ * Builds the registration of a record. Called concurrently from the signing threads.
+ */
+public interface RegistrationMapper {
+    /**
+     * @param record the input record
+     * @return the validated registration
+     * @throws IllegalArgumentException if the record does not hold a valid registration
+     */
+    AbstractRegistration map(Record record) throws IllegalArgumentException;
+}
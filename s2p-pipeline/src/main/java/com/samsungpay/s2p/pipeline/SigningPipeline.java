@@ -0,0 +1,412 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+import com.samsungpay.s2p.common.KeyRing;
+import com.samsungpay.s2p.common.S2PRequest;
+import com.samsungpay.s2p.common.SignerService;
+import com.samsungpay.s2p.common.jwt.JWSAlgorithm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns an NDJSON or CSV file of card records into a file of encoded, signed S2P requests.
+ * <p>
+ * A reading thread parses records and hands them to a fixed pool of signing threads, which map, validate,
+ * serialize, hash, sign and encode each record. The calling thread writes the results in input order. At most
+ * {@code maxInFlight} records are between reading and writing, so memory does not depend on the input size and a
+ * slow output slows the reading down.
+ * <p>
+ * Each input record yields one output line, {@code <record number>\t<encoded request>} when signed or
+ * {@code <record number>\tERROR\t<message>} when the record is invalid. With a checkpoint file, the number of
+ * records written, the input offset after them and the output length are saved every {@code checkpointInterval}
+ * records. A run finding a checkpoint cuts the output back to the saved length and seeks the input to the saved
+ * offset, so the records already written are not read again.
+ */
+public class SigningPipeline {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final String ERROR = "ERROR";
+    private static final Future<Output> END = new FutureTask<Output>(new Callable<Output>() {
+        @Override
+        public Output call() {
+            return null;
+        }
+    });
+
+    private final File input;
+    private final RecordFormat format;
+    private final RegistrationMapper mapper;
+    private final S2PRequest.Request request;
+    private final String keyID;
+    private final PrivateKey privateKey;
+    private final String keyPEMPath;
+    private final String passphrase;
+    private final JWSAlgorithm algorithm;
+    private final SignerService signerService;
+    private final File output;
+    private final boolean gzip;
+    private final File checkpoint;
+    private final int checkpointInterval;
+    private final int threads;
+    private final int maxInFlight;
+
+    private SigningPipeline(Builder builder) {
+        this.input = builder.input;
+        this.format = builder.format;
+        this.mapper = builder.mapper;
+        this.request = builder.request;
+        this.keyID = builder.keyID;
+        this.privateKey = builder.privateKey;
+        this.keyPEMPath = builder.keyPEMPath;
+        this.passphrase = builder.passphrase;
+        this.algorithm = builder.algorithm;
+        this.signerService = builder.signerService;
+        this.output = builder.output;
+        this.gzip = builder.gzip;
+        this.checkpoint = builder.checkpoint;
+        this.checkpointInterval = builder.checkpointInterval;
+        this.threads = builder.threads;
+        this.maxInFlight = builder.maxInFlight;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public PipelineResult run() throws IOException, GeneralSecurityException, InterruptedException {
+        PrivateKey key = privateKey != null ? privateKey : KeyRing.getDefault().getKey(keyPEMPath, passphrase);
+        Checkpoint start = checkpoint != null && checkpoint.exists() ? Checkpoint.read(checkpoint) : new Checkpoint(0, 0, 0);
+        if (start.records > 0 && !output.exists())
+            throw new IOException("Checkpoint " + checkpoint + " refers to the missing output " + output);
+
+        RecordReader reader = format.newReader(new InputReader(new FileInputStream(input), READ_BUFFER_SIZE));
+        ExecutorService signers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "s2p-pipeline-signer-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        Thread readerThread = null;
+        OutputSink sink = null;
+        try {
+            if (start.records > 0 && start.inputBytes >= 0) {
+                if (start.inputBytes > input.length())
+                    throw new IOException("Input " + input + " is shorter than checkpoint " + checkpoint);
+                reader.seek(start.records, start.inputBytes);
+            } else if (reader.skip(start.records) < start.records) {
+                throw new IOException("Input " + input + " is shorter than checkpoint " + checkpoint);
+            }
+            sink = new OutputSink(output, start.outputBytes, gzip);
+            long inputBytes = reader.position();
+
+            BlockingQueue<Future<Output>> pending = new ArrayBlockingQueue<Future<Output>>(maxInFlight);
+            Dispatcher dispatcher = new Dispatcher(reader, signers, pending, key);
+            readerThread = new Thread(dispatcher, "s2p-pipeline-reader");
+            readerThread.setDaemon(true);
+            readerThread.start();
+
+            long written = start.records;
+            long signed = 0;
+            long failed = 0;
+            for (Future<Output> next = pending.take(); next != END; next = pending.take()) {
+                Output result = get(next);
+                sink.writeLine(result.line);
+                if (result.signed)
+                    signed++;
+                else
+                    failed++;
+                written++;
+                inputBytes = result.inputBytes;
+                if (checkpoint != null && (written - start.records) % checkpointInterval == 0)
+                    new Checkpoint(written, inputBytes, sink.checkpoint()).write(checkpoint);
+            }
+            Throwable failure = dispatcher.failure;
+            if (failure instanceof IOException)
+                throw (IOException) failure;
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+            if (failure instanceof Error)
+                throw (Error) failure;
+            if (failure != null)
+                throw new IllegalStateException(failure);
+
+            long length = sink.checkpoint();
+            if (checkpoint != null)
+                new Checkpoint(written, inputBytes, length).write(checkpoint);
+            return new PipelineResult(start.records, signed, failed);
+        } finally {
+            signers.shutdownNow();
+            if (readerThread != null)
+                readerThread.interrupt();
+            reader.close();
+            if (sink != null)
+                sink.close();
+        }
+    }
+
+    private static Output get(Future<Output> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // record failures are written as errors, only errors get here
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Output sign(Record record, long inputBytes, PrivateKey key) {
+        StringBuilder line = new StringBuilder(1024).append(record.getNumber()).append('\t');
+        try {
+            S2PRequest signed = S2PRequest.newBuilder()
+                    .setKeyID(keyID)
+                    .setRequest(request)
+                    .setAlgorithm(algorithm)
+                    .setSignerService(signerService)
+                    .setRegistration(mapper.map(record))
+                    .sign(key);
+            signed.encodeTo(line);
+            return new Output(line.toString(), true, inputBytes);
+        } catch (Exception e) {
+            line.setLength(0);
+            String message = e.getMessage() == null ? e.toString() : e.getMessage();
+            line.append(record.getNumber()).append('\t').append(ERROR).append('\t').append(message.replaceAll("[\\t\\r\\n]+", " "));
+            return new Output(line.toString(), false, inputBytes);
+        }
+    }
+
+    private static class Output {
+        private final String line;
+        private final boolean signed;
+        private final long inputBytes;
+
+        private Output(String line, boolean signed, long inputBytes) {
+            this.line = line;
+            this.signed = signed;
+            this.inputBytes = inputBytes;
+        }
+    }
+
+    /**
+     * Reads records and submits them for signing, blocking while {@code maxInFlight} records await writing.
+     */
+    private class Dispatcher implements Runnable {
+        private final RecordReader reader;
+        private final ExecutorService signers;
+        private final BlockingQueue<Future<Output>> pending;
+        private final PrivateKey key;
+        private volatile Throwable failure;
+
+        private Dispatcher(RecordReader reader, ExecutorService signers, BlockingQueue<Future<Output>> pending, PrivateKey key) {
+            this.reader = reader;
+            this.signers = signers;
+            this.pending = pending;
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            boolean interrupted = false;
+            try {
+                for (Record record = reader.next(); record != null; record = reader.next()) {
+                    final Record next = record;
+                    final long inputBytes = reader.position();
+                    pending.put(signers.submit(new Callable<Output>() {
+                        @Override
+                        public Output call() {
+                            return sign(next, inputBytes, key);
+                        }
+                    }));
+                }
+            } catch (InterruptedException e) {
+                // the writer gave up
+                interrupted = true;
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                // the writer waits for the end marker, unless it gave up and interrupted the reader
+                if (!interrupted) {
+                    try {
+                        pending.put(END);
+                    } catch (InterruptedException e) {
+                        // the writer gave up
+                    }
+                }
+            }
+        }
+    }
+
+    public static class Builder {
+        private File input;
+        private RecordFormat format;
+        private RegistrationMapper mapper;
+        private S2PRequest.Request request;
+        private String keyID;
+        private PrivateKey privateKey;
+        private String keyPEMPath;
+        private String passphrase;
+        private JWSAlgorithm algorithm;
+        private SignerService signerService = SignerService.getDefault();
+        private File output;
+        private boolean gzip;
+        private File checkpoint;
+        private int checkpointInterval = 10000;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int maxInFlight;
+
+        private Builder() {
+        }
+
+        public Builder setInput(File input) {
+            this.input = input;
+            return this;
+        }
+
+        /**
+         * @param format input format, inferred from a {@code .csv} extension when not set
+         */
+        public Builder setFormat(RecordFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        public Builder setMapper(RegistrationMapper mapper) {
+            this.mapper = mapper;
+            return this;
+        }
+
+        public Builder setRequest(S2PRequest.Request request) {
+            this.request = request;
+            return this;
+        }
+
+        public Builder setKeyID(String keyID) {
+            this.keyID = keyID;
+            return this;
+        }
+
+        public Builder setPrivateKey(PrivateKey privateKey) {
+            this.privateKey = privateKey;
+            return this;
+        }
+
+        public Builder setKeyPEMPath(String keyPEMPath) {
+            this.keyPEMPath = keyPEMPath;
+            return this;
+        }
+
+        public Builder setPassphrase(String passphrase) {
+            this.passphrase = passphrase;
+            return this;
+        }
+
+        public Builder setAlgorithm(JWSAlgorithm algorithm) {
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        public Builder setSignerService(SignerService signerService) {
+            this.signerService = signerService;
+            return this;
+        }
+
+        public Builder setOutput(File output) {
+            this.output = output;
+            return this;
+        }
+
+        public Builder setGzip(boolean gzip) {
+            this.gzip = gzip;
+            return this;
+        }
+
+        /**
+         * @param checkpoint file recording the progress, enabling resumption when set
+         */
+        public Builder setCheckpoint(File checkpoint) {
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
+        public Builder setCheckpointInterval(int checkpointInterval) {
+            this.checkpointInterval = checkpointInterval;
+            return this;
+        }
+
+        public Builder setThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * @param maxInFlight maximum number of records read but not yet written, 16 per thread by default
+         */
+        public Builder setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public SigningPipeline build() throws IllegalArgumentException {
+            if (input == null)
+                throw new IllegalArgumentException("SigningPipeline input is missing");
+            if (mapper == null)
+                throw new IllegalArgumentException("SigningPipeline mapper is missing");
+            if (request == null)
+                throw new IllegalArgumentException("SigningPipeline request enum is missing");
+            if (keyID == null || keyID.isEmpty())
+                throw new IllegalArgumentException("SigningPipeline keyID is missing");
+            if (privateKey == null && (keyPEMPath == null || keyPEMPath.isEmpty()))
+                throw new IllegalArgumentException("SigningPipeline private key or keyPEMPath is missing");
+            if (signerService == null)
+                throw new IllegalArgumentException("SigningPipeline signer service is missing");
+            if (output == null)
+                throw new IllegalArgumentException("SigningPipeline output is missing");
+            if (checkpointInterval < 1)
+                throw new IllegalArgumentException("SigningPipeline checkpointInterval must be positive");
+            if (threads < 1)
+                throw new IllegalArgumentException("SigningPipeline threads must be positive");
+            if (maxInFlight < 0)
+                throw new IllegalArgumentException("SigningPipeline maxInFlight must be positive");
+
+            if (format == null)
+                format = input.getName().toLowerCase(Locale.ENGLISH).endsWith(".csv") ? RecordFormat.CSV : RecordFormat.NDJSON;
+            if (maxInFlight == 0)
+                maxInFlight = threads * 16;
+            return new SigningPipeline(this);
+        }
+    }
+}
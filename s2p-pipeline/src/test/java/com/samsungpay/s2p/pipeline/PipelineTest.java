@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.pipeline;
+
+import com.samsungpay.s2p.common.AbstractRegistration;
+import com.samsungpay.s2p.common.S2PRequest;
+import com.samsungpay.s2p.common.jwt.JWTVerifier;
+import com.samsungpay.s2p.membership.Registration;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+public class PipelineTest {
+    private static final int RECORDS = 1000;
+    private static final int INVALID_RECORD = 123;
+    private static KeyPair KEY_PAIR;
+
+    @BeforeClass
+    public static void setUpClass() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KEY_PAIR = generator.generateKeyPair();
+    }
+
+    @Test
+    public void verifyCsvRecordsAreSignedInOrder() throws Exception {
+        File input = writeMembershipCsv();
+        File output = tempFile(".out");
+
+        PipelineResult result = newBuilder(input, output, new MembershipRecordMapper()).build().run();
+        Assert.assertEquals(0, result.getResumedFrom());
+        Assert.assertEquals(RECORDS - 1, result.getSigned());
+        Assert.assertEquals(1, result.getFailed());
+
+        List<String> lines = readLines(output, false);
+        Assert.assertEquals(RECORDS, lines.size());
+        JWTVerifier verifier = new JWTVerifier(1).addKey("kid", KEY_PAIR.getPublic());
+        for (int i = 0; i < RECORDS; i++) {
+            String[] fields = lines.get(i).split("\t");
+            Assert.assertEquals(String.valueOf(i), fields[0]);
+            if (i == INVALID_RECORD) {
+                Assert.assertEquals("ERROR", fields[1]);
+                Assert.assertEquals("Registration programName is missing", fields[2]);
+                continue;
+            }
+            S2PRequest request = S2PRequest.decode(fields[1]);
+            request.verify(verifier);
+            Registration registration = request.getRegistration(Registration.class);
+            Assert.assertEquals("card-" + i, registration.getCardId());
+            Assert.assertEquals("Program, \"" + i + "\"", registration.getProgramName());
+        }
+    }
+
+    @Test
+    public void verifyNdjsonGiftCardsAreSigned() throws Exception {
+        File input = tempFile(".ndjson");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(input), "UTF-8");
+        try {
+            writer.write("{\"cardId\":\"gift-1\",\"cardImageUrl\":\"https://example.com/card.png\",\"tncUrl\":\"https://example.com/tnc\",\"merchantName\":\"Café\",\"merchantLogoUrl\":\"https://example.com/logo.png\"}\n");
+            writer.write("\n");
+            writer.write("{\"cardId\":\"gift-2\"}\n");
+            writer.write("not json\n");
+        } finally {
+            writer.close();
+        }
+        File output = tempFile(".out");
+
+        PipelineResult result = newBuilder(input, output, new GiftCardRecordMapper())
+                .setRequest(S2PRequest.Request.SAVE_TO_SPAY_GIFTCARD)
+                .build()
+                .run();
+        Assert.assertEquals(1, result.getSigned());
+        Assert.assertEquals(2, result.getFailed());
+
+        List<String> lines = readLines(output, false);
+        Assert.assertEquals(3, lines.size());
+        S2PRequest request = S2PRequest.decode(lines.get(0).split("\t")[1]);
+        request.verify(new JWTVerifier(1).addKey("kid", KEY_PAIR.getPublic()));
+        Assert.assertEquals("Café", request.getRegistration(com.samsungpay.s2p.giftcard.Registration.class).getMerchant().getName());
+        Assert.assertTrue(lines.get(1).startsWith("1\tERROR\t"));
+        Assert.assertTrue(lines.get(2).startsWith("2\tERROR\t"));
+    }
+
+    @Test
+    public void verifyCrashedRunResumesFromCheckpoint() throws Exception {
+        File input = writeMembershipCsv();
+        File expected = tempFile(".out");
+        newBuilder(input, expected, new MembershipRecordMapper()).build().run();
+
+        File output = tempFile(".out.gz");
+        File checkpoint = tempFile(".checkpoint");
+        checkpoint.delete();
+        final RegistrationMapper mapper = new MembershipRecordMapper();
+        try {
+            newBuilder(input, output, new RegistrationMapper() {
+                @Override
+                public AbstractRegistration map(Record record) {
+                    if (record.getNumber() == 750)
+                        throw new SimulatedCrash();
+                    return mapper.map(record);
+                }
+            }).setGzip(true).setCheckpoint(checkpoint).setCheckpointInterval(100).build().run();
+            Assert.fail("the run must crash");
+        } catch (SimulatedCrash e) {
+            // expected
+        }
+        Assert.assertTrue(checkpoint.exists());
+
+        // the records before the checkpoint are not read again, splitting the first one in two must not shift the rest
+        RandomAccessFile damaged = new RandomAccessFile(input, "rw");
+        try {
+            damaged.seek(damaged.readLine().length() + 2 + "card-0,mem".length());
+            damaged.write('\n');
+        } finally {
+            damaged.close();
+        }
+
+        PipelineResult result = newBuilder(input, output, mapper)
+                .setGzip(true)
+                .setCheckpoint(checkpoint)
+                .setCheckpointInterval(100)
+                .build()
+                .run();
+        Assert.assertTrue(result.getResumedFrom() > 0 && result.getResumedFrom() <= 750);
+        Assert.assertEquals(RECORDS - result.getResumedFrom(), result.getSigned() + result.getFailed());
+        Assert.assertEquals(readLines(expected, false), readLines(output, true));
+    }
+
+    private static SigningPipeline.Builder newBuilder(File input, File output, RegistrationMapper mapper) {
+        return SigningPipeline.newBuilder()
+                .setInput(input)
+                .setOutput(output)
+                .setMapper(mapper)
+                .setRequest(S2PRequest.Request.SAVE_TO_SPAY_MEMBERSHIP)
+                .setKeyID("kid")
+                .setPrivateKey(KEY_PAIR.getPrivate())
+                .setThreads(4)
+                .setMaxInFlight(32);
+    }
+
+    private static File writeMembershipCsv() throws IOException {
+        File input = tempFile(".csv");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(input), "UTF-8");
+        try {
+            writer.write("cardId,membershipId,membershipIdType,programName,barcodeSymbology,barcodeData\r\n");
+            for (int i = 0; i < RECORDS; i++) {
+                String programName = i == INVALID_RECORD ? "" : "\"Program, \"\"" + i + "\"\"\"";
+                writer.write("card-" + i + ",member-" + i + ",CARDNUM," + programName + ",QR_CODE,données-\uD83D\uDCB3-" + i + "\r\n");
+            }
+        } finally {
+            writer.close();
+        }
+        return input;
+    }
+
+    private static List<String> readLines(File file, boolean gzip) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (gzip)
+            in = new GZIPInputStream(in);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        try {
+            List<String> lines = new ArrayList<String>();
+            for (String line = reader.readLine(); line != null; line = reader.readLine())
+                lines.add(line);
+            return lines;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static File tempFile(String suffix) throws IOException {
+        File file = File.createTempFile("s2p-pipeline", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static class SimulatedCrash extends Error {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.reactive;
+
+import com.samsungpay.s2p.common.AbstractRegistration;
+import com.samsungpay.s2p.common.S2PRequest;
+import com.samsungpay.s2p.common.SignerService;
+import com.samsungpay.s2p.common.SigningResult;
+import com.samsungpay.s2p.common.jwt.JWSAlgorithm;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.security.PrivateKey;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reactive Streams processor signing registrations with bounded parallelism.
+ * <p>
+ * Registrations are requested from upstream only as downstream demand allows, and at most {@code parallelism}
+ * of them are being signed or waiting to be emitted at any time, so nothing is buffered beyond that. Signing runs
+ * on the given executor with the pooled signers of the {@link SignerService}, and results are emitted in input
+ * order. A registration that cannot be signed yields a failed {@link SigningResult} rather than an error signal.
+ * <p>
+ * The processor accepts a single subscriber.
+ */
+public class SigningProcessor implements Processor<AbstractRegistration, SigningResult> {
+    private final String keyID;
+    private final S2PRequest.Request request;
+    private final PrivateKey privateKey;
+    private final JWSAlgorithm algorithm;
+    private final SignerService signerService;
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    private final Object lock = new Object();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final Queue<Slot> slots = new ArrayDeque<Slot>();
+    private Subscription upstream;
+    private boolean subscribed;
+    private Subscriber<? super SigningResult> downstream;
+    private long requested;
+    private long upstreamPending;
+    private long index;
+    private boolean done;
+    private Throwable error;
+    private boolean cancelled;
+    private boolean terminated;
+
+    private SigningProcessor(Builder builder) {
+        this.keyID = builder.keyID;
+        this.request = builder.request;
+        this.privateKey = builder.privateKey;
+        this.algorithm = builder.algorithm;
+        this.signerService = builder.signerService;
+        this.executor = builder.executor == null ? DefaultExecutor.INSTANCE : builder.executor;
+        this.parallelism = builder.parallelism;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super SigningResult> subscriber) {
+        if (subscriber == null)
+            throw new NullPointerException("SigningProcessor subscriber is missing");
+        boolean accepted;
+        synchronized (lock) {
+            accepted = !subscribed;
+            subscribed = true;
+        }
+        if (accepted) {
+            subscriber.onSubscribe(new DownstreamSubscription());
+            // signals start once onSubscribe has returned
+            synchronized (lock) {
+                downstream = subscriber;
+            }
+        } else {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("SigningProcessor allows a single subscriber"));
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        if (subscription == null)
+            throw new NullPointerException("SigningProcessor subscription is missing");
+        boolean accepted;
+        synchronized (lock) {
+            accepted = upstream == null && !cancelled;
+            if (accepted)
+                upstream = subscription;
+        }
+        if (!accepted) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(final AbstractRegistration registration) {
+        if (registration == null)
+            throw new NullPointerException("SigningProcessor registration is missing");
+        final Slot slot = new Slot();
+        final long slotIndex;
+        synchronized (lock) {
+            if (done || cancelled)
+                return;
+            upstreamPending--;
+            slotIndex = index++;
+            slots.add(slot);
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    slot.result = sign(slotIndex, registration);
+                    drain();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slot.result = SigningResult.failed(slotIndex, registration, e);
+            drain();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (throwable == null)
+            throw new NullPointerException("SigningProcessor error is missing");
+        synchronized (lock) {
+            if (done)
+                return;
+            done = true;
+            error = throwable;
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (lock) {
+            done = true;
+        }
+        drain();
+    }
+
+    private SigningResult sign(long slotIndex, AbstractRegistration registration) {
+        try {
+            S2PRequest signed = S2PRequest.newBuilder()
+                    .setKeyID(keyID)
+                    .setRequest(request)
+                    .setAlgorithm(algorithm)
+                    .setSignerService(signerService)
+                    .setRegistration(registration)
+                    .sign(privateKey);
+            return SigningResult.signed(slotIndex, registration, signed);
+        } catch (Exception e) {
+            return SigningResult.failed(slotIndex, registration, e);
+        }
+    }
+
+    /**
+     * Emits the completed results in order and tops up the upstream demand. Runs on one thread at a time, other
+     * callers only mark that another pass is needed, so signals are serialized without holding a lock.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0)
+            return;
+        int missed = 1;
+        do {
+            while (true) {
+                Subscriber<? super SigningResult> subscriber;
+                Subscription subscription = null;
+                SigningResult next = null;
+                Throwable failure = null;
+                boolean complete = false;
+                long toRequest = 0;
+                synchronized (lock) {
+                    subscriber = downstream;
+                    if (subscriber == null || cancelled || terminated)
+                        break;
+                    Slot head = slots.peek();
+                    if (head != null && head.result != null && requested > 0) {
+                        slots.poll();
+                        requested--;
+                        next = head.result;
+                    } else if (head == null && done) {
+                        terminated = true;
+                        complete = error == null;
+                        failure = error;
+                    }
+                    if (!done && upstream != null) {
+                        long window = Math.min(parallelism, requested);
+                        toRequest = window - slots.size() - upstreamPending;
+                        if (toRequest > 0) {
+                            upstreamPending += toRequest;
+                            subscription = upstream;
+                        }
+                    }
+                }
+                if (subscription != null)
+                    subscription.request(toRequest);
+                if (next != null) {
+                    subscriber.onNext(next);
+                    continue;
+                }
+                if (complete)
+                    subscriber.onComplete();
+                else if (failure != null)
+                    subscriber.onError(failure);
+                break;
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private static class Slot {
+        private volatile SigningResult result;
+    }
+
+    private class DownstreamSubscription implements Subscription {
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                synchronized (lock) {
+                    if (terminated || cancelled)
+                        return;
+                    // emitted by the drain loop, which may be inside onNext on another thread
+                    done = true;
+                    error = new IllegalArgumentException("SigningProcessor request must be positive, was " + n);
+                    slots.clear();
+                }
+                cancelUpstream();
+                drain();
+                return;
+            }
+            synchronized (lock) {
+                requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (lock) {
+                cancelled = true;
+                slots.clear();
+            }
+            cancelUpstream();
+        }
+
+        private void cancelUpstream() {
+            Subscription subscription;
+            synchronized (lock) {
+                subscription = upstream;
+            }
+            if (subscription != null)
+                subscription.cancel();
+        }
+    }
+
+    private static class DefaultExecutor {
+        private static final ExecutorService INSTANCE = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "s2p-reactive-signer-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public static class Builder {
+        private String keyID;
+        private S2PRequest.Request request;
+        private PrivateKey privateKey;
+        private JWSAlgorithm algorithm;
+        private SignerService signerService = SignerService.getDefault();
+        private ExecutorService executor;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        private Builder() {
+        }
+
+        public Builder setKeyID(String keyID) {
+            this.keyID = keyID;
+            return this;
+        }
+
+        public Builder setRequest(S2PRequest.Request request) {
+            this.request = request;
+            return this;
+        }
+
+        public Builder setPrivateKey(PrivateKey privateKey) {
+            this.privateKey = privateKey;
+            return this;
+        }
+
+        public Builder setAlgorithm(JWSAlgorithm algorithm) {
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        public Builder setSignerService(SignerService signerService) {
+            this.signerService = signerService;
+            return this;
+        }
+
+        /**
+         * @param executor executor running the signing, a shared pool sized to the processors when not set
+         */
+        public Builder setExecutor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @param parallelism maximum number of registrations being signed or awaiting emission
+         */
+        public Builder setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public SigningProcessor build() throws IllegalArgumentException {
+            if (keyID == null || keyID.isEmpty())
+                throw new IllegalArgumentException("SigningProcessor keyID is missing");
+            if (request == null)
+                throw new IllegalArgumentException("SigningProcessor request enum is missing");
+            if (privateKey == null)
+                throw new IllegalArgumentException("SigningProcessor private key is missing");
+            if (signerService == null)
+                throw new IllegalArgumentException("SigningProcessor signer service is missing");
+            if (parallelism < 1)
+                throw new IllegalArgumentException("SigningProcessor parallelism must be positive");
+            return new SigningProcessor(this);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.reactive;
+
+import com.samsungpay.s2p.common.AbstractRegistration;
+import com.samsungpay.s2p.common.S2PRequest;
+import com.samsungpay.s2p.common.SigningResult;
+import com.samsungpay.s2p.common.jwt.JWTVerifier;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ReactiveTest {
+    private static KeyPair KEY_PAIR;
+
+    @BeforeClass
+    public static void setUpClass() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KEY_PAIR = generator.generateKeyPair();
+    }
+
+    @Test
+    public void verifyProcessorSignsInOrderWithinDemand() throws Exception {
+        ListPublisher publisher = new ListPublisher(200);
+        SigningProcessor processor = newProcessor(4);
+        CollectingSubscriber subscriber = new CollectingSubscriber(3, Long.MAX_VALUE);
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+
+        Assert.assertTrue(subscriber.completed.await(60, TimeUnit.SECONDS));
+        Assert.assertNull(subscriber.error);
+        Assert.assertEquals(200, subscriber.results.size());
+        JWTVerifier verifier = new JWTVerifier(1).addKey("kid", KEY_PAIR.getPublic());
+        for (int i = 0; i < 200; i++) {
+            SigningResult result = subscriber.results.get(i);
+            Assert.assertEquals(i, result.getIndex());
+            Assert.assertSame(publisher.registrations.get(i), result.getRegistration());
+            Assert.assertTrue(result.isSigned());
+            result.getRequest().verify(verifier);
+        }
+        Assert.assertTrue(publisher.maxOutstanding <= 4);
+    }
+
+    @Test
+    public void verifyProcessorStopsAtDownstreamDemand() throws Exception {
+        ListPublisher publisher = new ListPublisher(100);
+        SigningProcessor processor = newProcessor(4);
+        CollectingSubscriber subscriber = new CollectingSubscriber(5, 5);
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+
+        long deadline = System.currentTimeMillis() + 30000;
+        while (subscriber.results.size() < 5 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        Thread.sleep(200);
+        Assert.assertEquals(5, subscriber.results.size());
+        Assert.assertEquals(5, publisher.delivered);
+
+        subscriber.subscription.cancel();
+        Assert.assertTrue(publisher.cancelled);
+    }
+
+    @Test
+    public void verifyInvalidRequestIsSignalledSerially() throws Exception {
+        ListPublisher publisher = new ListPublisher(100);
+        SigningProcessor processor = newProcessor(4);
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch terminated = new CountDownLatch(1);
+        final AtomicBoolean inOnNext = new AtomicBoolean();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final AtomicReference<Subscription> subscription = new AtomicReference<Subscription>();
+        // requests from another thread while the drain loop, on whichever thread it runs, is inside onNext
+        final AtomicBoolean signalledEarly = new AtomicBoolean();
+        Thread requester = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (entered.await(30, TimeUnit.SECONDS)) {
+                        subscription.get().request(0);
+                        signalledEarly.set(error.get() != null);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    release.countDown();
+                }
+            }
+        });
+        requester.start();
+        publisher.subscribe(processor);
+        processor.subscribe(new Subscriber<SigningResult>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription.set(s);
+                s.request(5);
+            }
+
+            @Override
+            public void onNext(SigningResult result) {
+                inOnNext.set(true);
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inOnNext.set(false);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                overlapped.compareAndSet(false, inOnNext.get());
+                error.set(throwable);
+                terminated.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                terminated.countDown();
+            }
+        });
+
+        Assert.assertTrue(terminated.await(30, TimeUnit.SECONDS));
+        requester.join();
+        Assert.assertFalse(signalledEarly.get());
+        Assert.assertTrue(error.get() instanceof IllegalArgumentException);
+        Assert.assertFalse(overlapped.get());
+        Assert.assertTrue(publisher.cancelled);
+    }
+
+    private static SigningProcessor newProcessor(int parallelism) {
+        return SigningProcessor.newBuilder()
+                .setKeyID("kid")
+                .setRequest(S2PRequest.Request.SAVE_TO_SPAY_MEMBERSHIP)
+                .setPrivateKey(KEY_PAIR.getPrivate())
+                .setParallelism(parallelism)
+                .build();
+    }
+
+    /**
+     * Emits a fixed list on the requesting thread and records the largest demand left unserved.
+     */
+    private static class ListPublisher implements Publisher<AbstractRegistration> {
+        private final List<AbstractRegistration> registrations = new ArrayList<AbstractRegistration>();
+        private volatile long maxOutstanding;
+        private volatile int delivered;
+        private volatile boolean cancelled;
+
+        private ListPublisher(int count) {
+            for (int i = 0; i < count; i++)
+                registrations.add(new TestRegistration("registration " + i));
+        }
+
+        @Override
+        public void subscribe(final Subscriber<? super AbstractRegistration> subscriber) {
+            subscriber.onSubscribe(new Subscription() {
+                private long outstanding;
+                private boolean emitting;
+
+                @Override
+                public synchronized void request(long n) {
+                    outstanding += n;
+                    maxOutstanding = Math.max(maxOutstanding, outstanding);
+                    if (emitting)
+                        return;
+                    emitting = true;
+                    while (outstanding > 0 && delivered < registrations.size() && !cancelled) {
+                        outstanding--;
+                        subscriber.onNext(registrations.get(delivered++));
+                    }
+                    emitting = false;
+                    if (delivered == registrations.size() && !cancelled)
+                        subscriber.onComplete();
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    private static class CollectingSubscriber implements Subscriber<SigningResult> {
+        private final int batch;
+        private final long limit;
+        private final List<SigningResult> results = Collections.synchronizedList(new ArrayList<SigningResult>());
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+
+        private CollectingSubscriber(int batch, long limit) {
+            this.batch = batch;
+            this.limit = limit;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Math.min(batch, limit));
+        }
+
+        @Override
+        public void onNext(SigningResult result) {
+            results.add(result);
+            if (results.size() % batch == 0 && results.size() < limit)
+                subscription.request(Math.min(batch, limit - results.size()));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    private static class TestRegistration extends AbstractRegistration {
+        private String name;
+
+        private TestRegistration(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.server;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.samsungpay.s2p.common.AbstractRegistration;
+import com.samsungpay.s2p.common.S2PRequest;
+import com.samsungpay.s2p.common.SerializationContext;
+import com.samsungpay.s2p.common.SignedLinkCache;
+import com.samsungpay.s2p.common.Util;
+import com.samsungpay.s2p.common.jwt.JWSAlgorithm;
+import com.samsungpay.s2p.common.model.Validatable;
+import com.samsungpay.s2p.common.model.ValidationResult;
+import com.sun.net.httpserver.Authenticator;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Embedded HTTP service signing registrations with a key it holds, so that the services rendering links do not
+ * need the private key.
+ * <p>
+ * {@code POST /membership} and {@code POST /giftcard} take the registration JSON and answer {@code 200} with the
+ * encoded {@link S2PRequest} as {@code text/plain}. Invalid registrations are answered with {@code 400} listing
+ * every violation, one {@code path: message (CODE)} per line, other methods with {@code 405} and other paths with
+ * {@code 404}; error bodies carry the message, except signing failures, which are logged and answered with
+ * {@code 500} and a generic message.
+ * <p>
+ * Anyone able to reach the server obtains signed requests, so it binds the loopback address unless a host is set,
+ * and binding another address requires an {@link Authenticator}, preferably over HTTPS.
+ * <p>
+ * Requests are handled on a fixed pool of threads signing with the pooled signatures of the shared signer service.
+ * Responses carry their length, so clients may keep connections alive. The JDK server flushes the response headers
+ * and body separately, so without {@code -Dsun.net.httpserver.nodelay=true} every keep-alive exchange stalls on the
+ * client's delayed acknowledgement; the property applies to every server of the JVM and is set by {@link #main}
+ * only. Optionally, a {@link SignedLinkCache} answers repeated registrations without signing.
+ */
+public class SigningServer implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(SigningServer.class.getName());
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+    private static final int STOP_DELAY_SECONDS = 1;
+    private static final ThreadLocal<ValidationResult> VALIDATION_RESULTS = new ThreadLocal<ValidationResult>() {
+        @Override
+        protected ValidationResult initialValue() {
+            return new ValidationResult();
+        }
+    };
+
+    private final String keyID;
+    private final PrivateKey privateKey;
+    private final JWSAlgorithm algorithm;
+    private final SignedLinkCache linkCache;
+    private final int maxBodySize;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private SigningServer(Builder builder) throws IOException {
+        this.keyID = builder.keyID;
+        this.privateKey = builder.privateKey;
+        this.algorithm = builder.algorithm;
+        this.linkCache = builder.linkCache;
+        this.maxBodySize = builder.maxBodySize;
+
+        InetSocketAddress address = builder.host == null
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port)
+                : new InetSocketAddress(builder.host, builder.port);
+        if (builder.httpsConfigurator != null) {
+            HttpsServer httpsServer = HttpsServer.create(address, builder.backlog);
+            httpsServer.setHttpsConfigurator(builder.httpsConfigurator);
+            this.server = httpsServer;
+        } else {
+            this.server = HttpServer.create(address, builder.backlog);
+        }
+        this.executor = Executors.newFixedThreadPool(builder.threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "s2p-server-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        server.setExecutor(executor);
+        authenticate(server.createContext("/membership", new SigningHandler<com.samsungpay.s2p.membership.Registration>("/membership", S2PRequest.Request.SAVE_TO_SPAY_MEMBERSHIP,
+                com.samsungpay.s2p.membership.Registration.class)), builder.authenticator);
+        authenticate(server.createContext("/giftcard", new SigningHandler<com.samsungpay.s2p.giftcard.Registration>("/giftcard", S2PRequest.Request.SAVE_TO_SPAY_GIFTCARD,
+                com.samsungpay.s2p.giftcard.Registration.class)), builder.authenticator);
+        authenticate(server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange, 404, "Not found: " + exchange.getRequestURI().getPath());
+            }
+        }), builder.authenticator);
+    }
+
+    private static void authenticate(HttpContext context, Authenticator authenticator) {
+        if (authenticator != null)
+            context.setAuthenticator(authenticator);
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Runs a server on the loopback address until the process is stopped, with
+     * {@code sun.net.httpserver.nodelay} enabled unless set otherwise.
+     * <p>
+     * Usage: {@code SigningServer <port> <key id> <private key PEM path> [threads]}
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: SigningServer <port> <key id> <private key PEM path> [threads]");
+            System.exit(2);
+        }
+        // read once, when the first server of the JVM is created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        Builder builder = newBuilder()
+                .setPort(Integer.parseInt(args[0]))
+                .setKeyID(args[1])
+                .setPrivateKey(Util.readPrivateKeyFromPEM(args[2]))
+                .setLinkCache(SignedLinkCache.newBuilder().build());
+        if (args.length > 3)
+            builder.setThreads(Integer.parseInt(args[3]));
+        SigningServer server = builder.build();
+        server.start();
+        System.out.println("Signing on port " + server.getPort());
+        Thread.currentThread().join();
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return the bound port, useful when the server was built with port 0
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting connections, lets exchanges in progress finish for up to a second and stops the threads.
+     */
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(STOP_DELAY_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String sign(S2PRequest.Request request, AbstractRegistration registration) throws IOException, GeneralSecurityException {
+        S2PRequest.Builder builder = S2PRequest.newBuilder()
+                .setKeyID(keyID)
+                .setRequest(request)
+                .setAlgorithm(algorithm)
+                .setRegistration(registration);
+        return linkCache == null ? builder.sign(privateKey).encode() : linkCache.encode(builder, privateKey);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = message.getBytes(UTF8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, body);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    private class SigningHandler<T extends AbstractRegistration & Validatable> implements HttpHandler {
+        private final String path;
+        private final S2PRequest.Request request;
+        private final Class<T> type;
+
+        private SigningHandler(String path, S2PRequest.Request request, Class<T> type) {
+            this.path = path;
+            this.request = request;
+            this.type = type;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                if (!path.equals(exchange.getRequestURI().getPath())) {
+                    respond(exchange, 404, "Not found: " + exchange.getRequestURI().getPath());
+                    return;
+                }
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "POST");
+                    respond(exchange, 405, "Method not allowed: " + exchange.getRequestMethod());
+                    return;
+                }
+
+                String json = readBody(exchange);
+                if (json == null) {
+                    respond(exchange, 413, "Registration exceeds " + maxBodySize + " bytes");
+                    return;
+                }
+                T registration;
+                try {
+                    registration = SerializationContext.model().readValue(json, type);
+                } catch (JsonProcessingException e) {
+                    respond(exchange, 400, "Invalid registration JSON: " + e.getOriginalMessage());
+                    return;
+                }
+                if (registration == null) {
+                    respond(exchange, 400, "Registration is missing");
+                    return;
+                }
+                // parsing bypasses the builders, so the registration and the models it contains are checked here
+                ValidationResult result = VALIDATION_RESULTS.get().clear();
+                registration.validate(result);
+                if (!result.isValid()) {
+                    respond(exchange, 400, result.toString());
+                    return;
+                }
+
+                String encoded = sign(request, registration);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+                send(exchange, 200, encoded.getBytes(ASCII));
+            } catch (GeneralSecurityException e) {
+                fail(exchange, e);
+            } catch (RuntimeException e) {
+                fail(exchange, e);
+            } finally {
+                exchange.close();
+            }
+        }
+
+        /**
+         * The cause is logged only, it may reveal details of the key or the signing provider.
+         */
+        private void fail(HttpExchange exchange, Exception e) throws IOException {
+            LOGGER.log(Level.SEVERE, "Signing " + path + " failed", e);
+            respond(exchange, 500, "Signing failed");
+        }
+
+        /**
+         * @return the UTF-8 body, or null if it is larger than the maximum body size
+         */
+        private String readBody(HttpExchange exchange) throws IOException {
+            InputStream in = exchange.getRequestBody();
+            ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                if (body.size() + read > maxBodySize)
+                    return null;
+                body.write(buffer, 0, read);
+            }
+            return new String(body.toByteArray(), UTF8);
+        }
+    }
+
+    public static class Builder {
+        private String host;
+        private int port;
+        private int backlog = 1024;
+        private int threads = 2 * Runtime.getRuntime().availableProcessors();
+        private String keyID;
+        private PrivateKey privateKey;
+        private JWSAlgorithm algorithm;
+        private SignedLinkCache linkCache;
+        private int maxBodySize = 256 * 1024;
+        private Authenticator authenticator;
+        private HttpsConfigurator httpsConfigurator;
+
+        private Builder() {
+        }
+
+        /**
+         * @param host address to bind, the loopback address when not set. Any other address requires an
+         *             authenticator
+         */
+        public Builder setHost(String host) {
+            this.host = host;
+            return this;
+        }
+
+        /**
+         * @param port port to bind, an ephemeral port when 0, the default
+         */
+        public Builder setPort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * @param backlog maximum number of queued incoming connections, 1024 by default
+         */
+        public Builder setBacklog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        /**
+         * @param threads number of threads handling requests, twice the processors by default
+         */
+        public Builder setThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder setKeyID(String keyID) {
+            this.keyID = keyID;
+            return this;
+        }
+
+        public Builder setPrivateKey(PrivateKey privateKey) {
+            this.privateKey = privateKey;
+            return this;
+        }
+
+        /**
+         * @param algorithm the JWS algorithm, inferred from the private key type when not set
+         */
+        public Builder setAlgorithm(JWSAlgorithm algorithm) {
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        /**
+         * @param linkCache cache answering repeated registrations, none when not set
+         */
+        public Builder setLinkCache(SignedLinkCache linkCache) {
+            this.linkCache = linkCache;
+            return this;
+        }
+
+        /**
+         * @param maxBodySize largest accepted registration in bytes, 256 KB by default
+         */
+        public Builder setMaxBodySize(int maxBodySize) {
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
+        /**
+         * @param authenticator authenticator of every request, e.g. a {@link com.sun.net.httpserver.BasicAuthenticator},
+         *                      none when not set
+         */
+        public Builder setAuthenticator(Authenticator authenticator) {
+            this.authenticator = authenticator;
+            return this;
+        }
+
+        /**
+         * @param httpsConfigurator configuration of the TLS context, plain HTTP when not set
+         */
+        public Builder setHttpsConfigurator(HttpsConfigurator httpsConfigurator) {
+            this.httpsConfigurator = httpsConfigurator;
+            return this;
+        }
+
+        public SigningServer build() throws IllegalArgumentException, IOException {
+            if (keyID == null || keyID.isEmpty())
+                throw new IllegalArgumentException("SigningServer keyID is missing");
+            if (privateKey == null)
+                throw new IllegalArgumentException("SigningServer private key is missing");
+            if (port < 0 || port > 65535)
+                throw new IllegalArgumentException("SigningServer port is out of range");
+            if (threads < 1)
+                throw new IllegalArgumentException("SigningServer threads must be positive");
+            if (maxBodySize < 1)
+                throw new IllegalArgumentException("SigningServer maxBodySize must be positive");
+            if (host != null && authenticator == null && !InetAddress.getByName(host).isLoopbackAddress())
+                throw new IllegalArgumentException("SigningServer authenticator is missing, it is required to bind " + host);
+            return new SigningServer(this);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.server;
+
+import com.samsungpay.s2p.common.S2PRequest;
+import com.samsungpay.s2p.common.SignedLinkCache;
+import com.samsungpay.s2p.common.jwt.JWSAlgorithm;
+import com.samsungpay.s2p.common.jwt.JWTVerifier;
+import com.samsungpay.s2p.giftcard.model.Card;
+import com.samsungpay.s2p.giftcard.model.Merchant;
+import com.samsungpay.s2p.giftcard.model.Tnc;
+import com.samsungpay.s2p.membership.Registration;
+import com.samsungpay.s2p.membership.model.Barcode;
+import com.samsungpay.s2p.membership.model.MembershipIDType;
+import com.sun.net.httpserver.BasicAuthenticator;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ServerTest {
+    private static KeyPair KEY_PAIR;
+    private static SigningServer SERVER;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KEY_PAIR = generator.generateKeyPair();
+        SERVER = SigningServer.newBuilder()
+                .setHost("127.0.0.1")
+                .setKeyID("kid")
+                .setPrivateKey(KEY_PAIR.getPrivate())
+                .setThreads(4)
+                .setLinkCache(SignedLinkCache.newBuilder().build())
+                .setMaxBodySize(4096)
+                .build();
+        SERVER.start();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        SERVER.close();
+    }
+
+    @Test
+    public void verifyMembershipIsSigned() throws Exception {
+        Registration registration = Registration.newBuilder()
+                .setCardId("card-1")
+                .setMembershipId("member-1")
+                .setMembershipIDType(MembershipIDType.CARDNUM)
+                .setProgramName("Café Rewards")
+                .setBarcode(Barcode.newBuilder().setSymbology(Barcode.Symbology.QR_CODE).setData("data-1").build())
+                .build();
+
+        for (int i = 0; i < 2; i++) {
+            Response response = post("/membership", registration.toJson());
+            Assert.assertEquals(200, response.status);
+            S2PRequest request = S2PRequest.decode(response.body);
+            request.verify(new JWTVerifier(1).addKey("kid", KEY_PAIR.getPublic()));
+            Assert.assertEquals(S2PRequest.Request.SAVE_TO_SPAY_MEMBERSHIP, request.getRequest());
+            Assert.assertEquals(registration, request.getRegistration(Registration.class));
+        }
+    }
+
+    @Test
+    public void verifyGiftCardIsSigned() throws Exception {
+        com.samsungpay.s2p.giftcard.Registration registration = com.samsungpay.s2p.giftcard.Registration.newBuilder()
+                .card(Card.newBuilder()
+                        .id("gift-1")
+                        .imageUrl("https://example.com/card.png")
+                        .tnc(Tnc.newBuilder().url("https://example.com/tnc").build())
+                        .build())
+                .merchant(Merchant.newBuilder().name("Café").logoUrl("https://example.com/logo.png").build())
+                .build();
+        Response response = post("/giftcard", registration.toJson());
+        Assert.assertEquals(response.body, 200, response.status);
+        S2PRequest request = S2PRequest.decode(response.body);
+        request.verify(new JWTVerifier(1).addKey("kid", KEY_PAIR.getPublic()));
+        Assert.assertEquals(S2PRequest.Request.SAVE_TO_SPAY_GIFTCARD, request.getRequest());
+        Assert.assertEquals(registration, request.getRegistration(com.samsungpay.s2p.giftcard.Registration.class));
+    }
+
+    @Test
+    public void verifyInvalidRequestsAreRejected() throws Exception {
+        Response response = post("/membership", "{\"cardId\":\"card-1\",\"membershipId\":\"member-1\",\"membershipIdType\":\"CARDNUM\"}");
+        Assert.assertEquals(400, response.status);
+        Assert.assertEquals("programName: Registration programName is missing (MISSING)", response.body);
+
+        // contained models are checked too, and every violation is reported
+        response = post("/membership", "{\"cardId\":\"card-1\",\"membershipIdType\":\"CARDNUM\",\"programName\":\"Program\","
+                + "\"barcode\":{\"symbology\":\"QR_CODE\"}}");
+        Assert.assertEquals(400, response.status);
+        Assert.assertEquals("membershipId: Registration membership ID is missing (MISSING)\n"
+                + "barcode.data: Barcode data is missing (MISSING)", response.body);
+        Assert.assertEquals(400, post("/membership", "null").status);
+
+        Assert.assertEquals(400, post("/membership", "not json").status);
+        Assert.assertEquals(404, post("/unknown", "{}").status);
+        Assert.assertEquals(404, post("/membership/more", "{}").status);
+
+        StringBuilder large = new StringBuilder();
+        while (large.length() <= 4096)
+            large.append("          ");
+        Assert.assertEquals(413, post("/membership", large.toString()).status);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + SERVER.getPort() + "/membership").openConnection();
+        Assert.assertEquals(405, connection.getResponseCode());
+        Assert.assertEquals("POST", connection.getHeaderField("Allow"));
+        read(connection.getErrorStream());
+    }
+
+    @Test
+    public void verifyDefaultHostIsLoopback() throws Exception {
+        SigningServer server = SigningServer.newBuilder()
+                .setKeyID("kid")
+                .setPrivateKey(KEY_PAIR.getPrivate())
+                .build();
+        try {
+            server.start();
+            Assert.assertEquals(200, post(server, "/membership", membership().toJson(), null).status);
+        } finally {
+            server.close();
+        }
+
+        // other addresses require an authenticator
+        try {
+            SigningServer.newBuilder()
+                    .setHost("0.0.0.0")
+                    .setKeyID("kid")
+                    .setPrivateKey(KEY_PAIR.getPrivate())
+                    .build();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("SigningServer authenticator is missing, it is required to bind 0.0.0.0", e.getMessage());
+        }
+    }
+
+    @Test
+    public void verifyAuthenticatorGuardsSigning() throws Exception {
+        SigningServer server = SigningServer.newBuilder()
+                .setKeyID("kid")
+                .setPrivateKey(KEY_PAIR.getPrivate())
+                .setAuthenticator(new BasicAuthenticator("s2p") {
+                    @Override
+                    public boolean checkCredentials(String username, String password) {
+                        return "signer".equals(username) && "secret".equals(password);
+                    }
+                })
+                .build();
+        try {
+            server.start();
+            String json = membership().toJson();
+            Assert.assertEquals(401, post(server, "/membership", json, null).status);
+            Assert.assertEquals(401, post(server, "/membership", json, basic("signer", "wrong")).status);
+            Assert.assertEquals(200, post(server, "/membership", json, basic("signer", "secret")).status);
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void verifySigningFailureIsNotDisclosed() throws Exception {
+        // an RSA key cannot sign ES256
+        SigningServer server = SigningServer.newBuilder()
+                .setKeyID("kid")
+                .setPrivateKey(KEY_PAIR.getPrivate())
+                .setAlgorithm(JWSAlgorithm.ES256)
+                .build();
+        Logger logger = Logger.getLogger(SigningServer.class.getName());
+        Level level = logger.getLevel();
+        logger.setLevel(Level.OFF);
+        try {
+            server.start();
+            Response response = post(server, "/membership", membership().toJson(), null);
+            Assert.assertEquals(500, response.status);
+            Assert.assertEquals("Signing failed", response.body);
+        } finally {
+            logger.setLevel(level);
+            server.close();
+        }
+    }
+
+    private static Registration membership() {
+        return Registration.newBuilder()
+                .setCardId("card-1")
+                .setMembershipId("member-1")
+                .setMembershipIDType(MembershipIDType.CARDNUM)
+                .setProgramName("Program")
+                .build();
+    }
+
+    private static String basic(String username, String password) throws IOException {
+        return "Basic " + Base64.encodeBase64String((username + ":" + password).getBytes("UTF-8"));
+    }
+
+    private static Response post(String path, String body) throws IOException {
+        return post(SERVER, path, body, null);
+    }
+
+    private static Response post(SigningServer server, String path, String body, String authorization) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        if (authorization != null)
+            connection.setRequestProperty("Authorization", authorization);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        OutputStream out = connection.getOutputStream();
+        out.write(body.getBytes("UTF-8"));
+        out.close();
+        Response response = new Response();
+        response.status = connection.getResponseCode();
+        response.body = read(response.status < 400 ? connection.getInputStream() : connection.getErrorStream());
+        return response;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        if (in == null)
+            return "";
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer))
+            body.write(buffer, 0, read);
+        in.close();
+        return new String(body.toByteArray(), "UTF-8");
+    }
+
+    private static class Response {
+        private int status;
+        private String body;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017 Samsung Pay, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungpay.s2p.server;
+
+import com.samsungpay.s2p.common.SignedLinkCache;
+import com.samsungpay.s2p.membership.Registration;
+import com.samsungpay.s2p.membership.model.Barcode;
+import com.samsungpay.s2p.membership.model.MembershipIDType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.KeyPairGenerator;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load benchmark of the signing server over loopback with keep-alive connections.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.samsungpay.s2p.server.SigningServerBenchmark [clients] [seconds]
+ * [distinct registrations]}. Each client posts membership registrations drawn from the distinct ones, so that a
+ * small number exercises the link cache and a large number the signing. Reports the throughput and latency
+ * percentiles.
+ */
+public class SigningServerBenchmark {
+    private static final int MAX_SAMPLES_PER_CLIENT = 1 << 20;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        final long durationMillis = (args.length > 1 ? Long.parseLong(args[1]) : 10) * 1000;
+        int distinct = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+
+        // a deployment flag of the server, see SigningServer
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        SigningServer server = SigningServer.newBuilder()
+                .setHost("127.0.0.1")
+                .setKeyID("load")
+                .setPrivateKey(generator.generateKeyPair().getPrivate())
+                .setLinkCache(SignedLinkCache.newBuilder().build())
+                .build();
+        server.start();
+
+        final byte[][] bodies = new byte[distinct][];
+        for (int i = 0; i < distinct; i++) {
+            bodies[i] = Registration.newBuilder()
+                    .setCardId("card-" + i)
+                    .setMembershipId("member-" + i)
+                    .setMembershipIDType(MembershipIDType.CARDNUM)
+                    .setProgramName("Load Program")
+                    .setBarcode(Barcode.newBuilder().setSymbology(Barcode.Symbology.QR_CODE).setData("data-" + i).build())
+                    .build()
+                    .toJsonBytes();
+        }
+        final URL url = new URL("http://127.0.0.1:" + server.getPort() + "/membership");
+
+        // warm up the server and the connection pool
+        for (int i = 0; i < 2000; i++)
+            post(url, bodies[i % distinct]);
+
+        final long[][] samples = new long[clients][MAX_SAMPLES_PER_CLIENT];
+        final int[] counts = new int[clients];
+        final AtomicLong errors = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(clients);
+        final long start = System.nanoTime();
+        final long end = start + durationMillis * 1000000L;
+        for (int c = 0; c < clients; c++) {
+            final int client = c;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        int next = client;
+                        long now = System.nanoTime();
+                        while (now < end && counts[client] < MAX_SAMPLES_PER_CLIENT) {
+                            long sent = now;
+                            if (post(url, bodies[next % bodies.length]) != 200)
+                                errors.incrementAndGet();
+                            next += 7919;
+                            now = System.nanoTime();
+                            samples[client][counts[client]++] = now - sent;
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        server.close();
+
+        int total = 0;
+        for (int count : counts)
+            total += count;
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(samples[c], 0, latencies, offset, counts[c]);
+            offset += counts[c];
+        }
+        Arrays.sort(latencies);
+        System.out.println(String.format("%d clients, %d distinct: %.0f req/s, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, %d errors",
+                clients, distinct, total / seconds, percentile(latencies, 0.5), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), errors.get()));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0)
+            return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e6;
+    }
+
+    private static int post(URL url, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        connection.setRequestProperty("Content-Type", "application/json");
+        OutputStream out = connection.getOutputStream();
+        out.write(body);
+        out.close();
+        int status = connection.getResponseCode();
+        // draining the response returns the connection to the keep-alive cache
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        byte[] buffer = new byte[4096];
+        while (in.read(buffer) >= 0) {
+            // discard
+        }
+        in.close();
+        return status;
+    }
+}